@@ -0,0 +1,143 @@
+package dashboard.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dashboard.domain.CoinUser;
+import dashboard.domain.IdentityProvider;
+import dashboard.domain.Service;
+import dashboard.manage.ClassPathResourceManage;
+import dashboard.manage.Manage;
+import dashboard.service.impl.ServicesImpl;
+import dashboard.shibboleth.ShibbolethHeader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The fixtures the benchmarks share: the Manage metadata bundled with dashboard-server, generated metadata and services
+ * of the size of a production catalog and an authenticated user.
+ */
+public class BenchmarkFixtures {
+
+    /**
+     * The number of Service Providers of a production catalog, the bundled metadata only contains a few dozen.
+     */
+    public static final int GENERATED_SERVICE_PROVIDERS = 2_000;
+
+    private static Manage manage;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static synchronized Manage manage() {
+        if (manage == null) {
+            manage = new ClassPathResourceManage();
+        }
+        return manage;
+    }
+
+    /**
+     * @return the IdP that is connected to the most Service Providers, the worst case for the service lists
+     */
+    public static String identityProviderEntityId() {
+        return manage().getAllIdentityProviders().stream()
+                .filter(idp -> idp.getAllowedEntityIds() != null)
+                .max(Comparator.comparingInt(idp -> idp.getAllowedEntityIds().size()))
+                .map(IdentityProvider::getId)
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * Manage documents of the given number of Service Providers, copies of the bundled relying parties and single
+     * tenant templates with their own _id, entity id and eid.
+     */
+    public static byte[] serviceProviderDocuments(int count) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<ObjectNode> templates = new ArrayList<>();
+        for (String resource : List.of("manage/relying-parties.json", "manage/single-tenants.json")) {
+            try (InputStream inputStream = new ClassPathResource(resource).getInputStream()) {
+                objectMapper.readTree(inputStream).forEach(document -> templates.add((ObjectNode) document));
+            }
+        }
+        ArrayNode documents = objectMapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            ObjectNode document = templates.get(i % templates.size()).deepCopy();
+            document.put("_id", "generated-" + i);
+            ObjectNode data = (ObjectNode) document.get("data");
+            data.put("entityid", "https://sp" + i + ".example.org");
+            data.put("eid", 100_000 + i);
+            documents.add(document);
+        }
+        return objectMapper.writeValueAsBytes(documents);
+    }
+
+    /**
+     * The given number of services as listed for the {@link #identityProviderEntityId() IdP}, connected or not. The
+     * services are repeated with their own id, entity id and fragment key until there are enough.
+     */
+    public static List<Service> services(int count) {
+        ServicesImpl servicesImpl = new ServicesImpl(manage(), Collections.emptyList());
+        String idpEntityId = identityProviderEntityId();
+        List<Service> result = new ArrayList<>(count);
+        for (int copy = 0; result.size() < count; copy++) {
+            List<Service> services = servicesImpl.getServicesForIdp(idpEntityId, true, Locale.ENGLISH);
+            if (services.isEmpty()) {
+                throw new IllegalStateException("No services for " + idpEntityId);
+            }
+            for (Service service : services.subList(0, Math.min(services.size(), count - result.size()))) {
+                if (copy > 0) {
+                    service.setId(copy * 1_000_000L + service.getId());
+                    service.setSpEntityId(service.getSpEntityId() + "/" + copy);
+                    if (service.getFragmentKey() != null) {
+                        service.setFragmentKey(service.getFragmentKey() + "|" + copy);
+                    }
+                }
+                result.add(service);
+            }
+        }
+        return result;
+    }
+
+    public static Map<ShibbolethHeader, List<String>> userAttributes() {
+        Map<ShibbolethHeader, List<String>> attributes = new EnumMap<>(ShibbolethHeader.class);
+        attributes.put(ShibbolethHeader.Name_Id, Collections.singletonList("urn:collab:person:example.org:jdoe"));
+        attributes.put(ShibbolethHeader.Shib_Uid, Collections.singletonList("jdoe"));
+        attributes.put(ShibbolethHeader.Shib_Email, Collections.singletonList("john.doe@example.org"));
+        attributes.put(ShibbolethHeader.Shib_HomeOrg, Collections.singletonList("example.org"));
+        attributes.put(ShibbolethHeader.Shib_DisplayName, Collections.singletonList("John Doe"));
+        attributes.put(ShibbolethHeader.Shib_GivenName, Collections.singletonList("John"));
+        attributes.put(ShibbolethHeader.Shib_SurName, Collections.singletonList("Doe"));
+        attributes.put(ShibbolethHeader.Shib_CommonName, Collections.singletonList("John Doe"));
+        attributes.put(ShibbolethHeader.Shib_EduPersonPN, Collections.singletonList("jdoe@example.org"));
+        attributes.put(ShibbolethHeader.Shib_EduPersonAffiliation, List.of("member", "employee"));
+        attributes.put(ShibbolethHeader.Shib_EduPersonScopedAffiliation, List.of("member@example.org", "employee@example.org"));
+        attributes.put(ShibbolethHeader.Shib_MemberOf, List.of("urn:collab:org:surf.nl", "urn:collab:group:example.org:staff"));
+        return attributes;
+    }
+
+    /**
+     * Authenticates a regular user for all threads, as the benchmarked services read the current user.
+     */
+    public static CoinUser authenticate() {
+        CoinUser coinUser = new CoinUser();
+        coinUser.setUid("urn:collab:person:example.org:jdoe");
+        coinUser.setAttributeMap(userAttributes());
+
+        TestingAuthenticationToken token = new TestingAuthenticationToken(coinUser, "");
+        token.setAuthenticated(true);
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(token);
+        return coinUser;
+    }
+}
@@ -0,0 +1,41 @@
+package dashboard.benchmarks;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.OutputStream;
+
+/**
+ * HttpOutputMessage that only counts the bytes written, so the benchmarks measure the serialization itself.
+ */
+public class CountingOutputMessage implements HttpOutputMessage {
+
+    private final HttpHeaders headers = new HttpHeaders();
+    private long count;
+
+    private final OutputStream body = new OutputStream() {
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    };
+
+    @Override
+    public OutputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
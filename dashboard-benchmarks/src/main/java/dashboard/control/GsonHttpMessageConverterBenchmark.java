@@ -0,0 +1,102 @@
+package dashboard.control;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import dashboard.benchmarks.BenchmarkFixtures;
+import dashboard.benchmarks.CountingOutputMessage;
+import dashboard.domain.ARP;
+import dashboard.domain.CoinUser;
+import dashboard.domain.Service;
+import dashboard.service.impl.ServicesImpl;
+import dashboard.util.AttributeMapFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the services payload of an IdP as the services endpoint does, including the enrichment for the user. Without
+ * the fragment cache every service is serialized completely on each write. The services are either those of the
+ * bundled metadata or a production sized catalog. The baseline is the write before the streaming enrichment, which
+ * built a tree of the whole response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GsonHttpMessageConverterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean fragmentCache;
+
+    @Param({"bundled", "generated"})
+    public String services;
+
+    private GsonHttpMessageConverter converter;
+    private Gson gson;
+    private CoinUser coinUser;
+    private RestResponse<List<Service>> response;
+
+    @Setup
+    public void setUp() {
+        coinUser = BenchmarkFixtures.authenticate();
+        converter = new GsonHttpMessageConverter(false);
+        gson = GsonHttpMessageConverter.GSON_BUILDER.create();
+        List<Service> payload = services.equals("generated") ?
+                BenchmarkFixtures.services(BenchmarkFixtures.GENERATED_SERVICE_PROVIDERS) :
+                new ServicesImpl(BenchmarkFixtures.manage(), Collections.emptyList())
+                        .getServicesForIdp(BenchmarkFixtures.identityProviderEntityId(), false, Locale.ENGLISH);
+        if (!fragmentCache) {
+            payload.forEach(service -> service.setFragmentKey(null));
+        }
+        response = RestResponse.of(Locale.ENGLISH, payload);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputMessage outputMessage = new CountingOutputMessage();
+        converter.write(response, MediaType.APPLICATION_JSON, outputMessage);
+        return outputMessage.getCount();
+    }
+
+    @Benchmark
+    public long writeTreeBaseline() throws IOException {
+        JsonElement json = gson.toJsonTree(response);
+        JsonArray payload = json.getAsJsonObject().getAsJsonArray("payload");
+        for (int i = 0; i < payload.size(); i++) {
+            ARP arp = response.getPayload().get(i).getArp();
+            JsonArray filteredUserAttributes = new JsonArray();
+            if (arp != null && !arp.isNoArp() && !arp.isNoAttrArp()) {
+                AttributeMapFilter.filterAttributes(arp.getAttributes(), coinUser.getAttributeMap()).stream()
+                        .map(gson::toJsonTree)
+                        .forEach(filteredUserAttributes::add);
+            }
+            payload.get(i).getAsJsonObject().add(EnrichJson.FILTERED_USER_ATTRIBUTES, filteredUserAttributes);
+        }
+        CountingOutputMessage outputMessage = new CountingOutputMessage();
+        try (Writer writer = new OutputStreamWriter(outputMessage.getBody(), StandardCharsets.UTF_8)) {
+            gson.toJson(json, writer);
+        }
+        return outputMessage.getCount();
+    }
+}
@@ -0,0 +1,63 @@
+package dashboard.manage;
+
+import dashboard.benchmarks.BenchmarkFixtures;
+import dashboard.domain.IdentityProvider;
+import dashboard.domain.Provider;
+import dashboard.domain.ServiceProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Reading the Manage documents into providers, which is what every metadata refresh does. Next to the bundled
+ * documents the Service Providers of a production sized catalog are generated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManageDocumentReaderBenchmark {
+
+    @Param({"identity-providers", "service-providers", "generated-service-providers"})
+    public String document;
+
+    private byte[] json;
+    private Function<Map<String, Object>, ? extends Provider> provider;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (document.startsWith("generated")) {
+            json = BenchmarkFixtures.serviceProviderDocuments(BenchmarkFixtures.GENERATED_SERVICE_PROVIDERS);
+        } else {
+            try (InputStream inputStream = new ClassPathResource("manage/" + document + ".json").getInputStream()) {
+                json = StreamUtils.copyToByteArray(inputStream);
+            }
+        }
+        provider = document.startsWith("identity") ? IdentityProvider::new : ServiceProvider::new;
+    }
+
+    @Benchmark
+    public List<? extends Provider> read() throws IOException {
+        return ManageDocumentReader.read(new ByteArrayInputStream(json), provider);
+    }
+}
@@ -0,0 +1,45 @@
+package dashboard.sab;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a SAB attribute query response, done for every SAB lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SabResponseParserBenchmark {
+
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream inputStream = new ClassPathResource("sab/response.xml").getInputStream()) {
+            response = StreamUtils.copyToByteArray(inputStream);
+        }
+    }
+
+    @Benchmark
+    public SabRoleHolder parse() throws IOException {
+        return new SabResponseParser().parse(new ByteArrayInputStream(response));
+    }
+}
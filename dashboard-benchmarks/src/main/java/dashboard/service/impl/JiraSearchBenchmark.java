@@ -0,0 +1,112 @@
+package dashboard.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dashboard.domain.Action;
+import dashboard.domain.JiraResponse;
+import dashboard.service.impl.JiraSearchResponseReader.CustomField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reading a Jira search response into the tickets of the dashboard. The baseline is the read before the streaming
+ * reader, which parsed the whole response into nested maps before mapping the issues.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JiraSearchBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JiraClientImpl jiraClient;
+    private byte[] json;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        jiraClient = new JiraClientImpl("https://jira.example.org", "user", "password", "CXT", 5);
+        try (InputStream inputStream = new ClassPathResource("jira/mock_issues.json").getInputStream()) {
+            Map<String, Object> mock = objectMapper.readValue(inputStream, Map.class);
+            // the mock issues have no update date, which every real search response has
+            ((List<Map<String, Object>>) mock.get("issues")).stream()
+                    .map(issue -> (Map<String, Object>) issue.get("fields"))
+                    .forEach(fields -> fields.putIfAbsent("updated", fields.get("created")));
+            json = objectMapper.writeValueAsBytes(mock);
+        }
+    }
+
+    @Benchmark
+    public JiraResponse searchResponse() throws IOException {
+        return jiraClient.searchResponse(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public JiraResponse searchResponseMapBaseline() throws IOException {
+        Map<String, Object> result = objectMapper.readValue(json, Map.class);
+        List<Action> issues = ((List<Map<String, Object>>) result.get("issues")).stream().map(issue -> {
+            Map<String, Object> fields = (Map<String, Object>) issue.get("fields");
+
+            boolean rejected = ((List) ((Map) fields.getOrDefault("comment", Collections.EMPTY_MAP)).getOrDefault(
+                    "comments", Collections.emptyList()))
+                    .stream()
+                    .filter(o -> ((String) ((Map) o).getOrDefault("body", "")).contains("rejected"))
+                    .findAny().isPresent();
+
+            String issueType = (String) ((Map<String, Object>) fields.get("issuetype")).get("id");
+            Map<String, String> resolution = (Map<String, String>) fields.get("resolution");
+            String typeMetaData = Optional.ofNullable((Map<String, String>) fields.get(field(CustomField.TYPE_META_DATA)))
+                    .orElse(emptyMap()).getOrDefault("value", "");
+            String status = (String) ((Map<String, Object>) fields.get("status")).get("name");
+
+            return Action.builder()
+                    .jiraKey((String) issue.get("key"))
+                    .idpId(Optional.ofNullable((String) fields.get(field(CustomField.IDP_ENTITY_ID))).orElse(""))
+                    .spId(Optional.ofNullable((String) fields.get(field(CustomField.SP_ENTITY_ID))).orElse(""))
+                    .typeMetaData(typeMetaData)
+                    .emailTo(Optional.ofNullable((String) fields.get(field(CustomField.EMAIL_TO))).orElse(""))
+                    .status(status)
+                    .resolution(resolution != null ? resolution.get("name") : null)
+                    .type(jiraClient.findType(issueType))
+                    .personalMessage(Optional.ofNullable((String) fields.get(field(CustomField.OPTIONAL_MESSAGE))).orElse(""))
+                    .requestDate(ZonedDateTime.parse((String) fields.get("created"), DATE_FORMATTER))
+                    .updateDate(ZonedDateTime.parse((String) fields.get("updated"), DATE_FORMATTER))
+                    .body((String) fields.get("description"))
+                    .rejected(rejected)
+                    .build();
+        }).collect(toList());
+        return new JiraResponse(issues, (Integer) result.get("total"), (Integer) result.get("startAt"), (Integer) result.get("maxResults"));
+    }
+
+    private String field(CustomField customField) {
+        return jiraClient.customFieldName(customField);
+    }
+}
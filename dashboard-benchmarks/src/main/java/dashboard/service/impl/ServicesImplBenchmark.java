@@ -0,0 +1,49 @@
+package dashboard.service.impl;
+
+import dashboard.benchmarks.BenchmarkFixtures;
+import dashboard.domain.Service;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The services of the IdP connected to the most Service Providers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServicesImplBenchmark {
+
+    @Param({"false", "true"})
+    public boolean includeAll;
+
+    private ServicesImpl services;
+    private String idpEntityId;
+
+    @Setup
+    public void setUp() {
+        services = new ServicesImpl(BenchmarkFixtures.manage(), Collections.emptyList());
+        idpEntityId = BenchmarkFixtures.identityProviderEntityId();
+    }
+
+    @Benchmark
+    public List<Service> getServicesForIdp() {
+        return services.getServicesForIdp(idpEntityId, includeAll, Locale.ENGLISH);
+    }
+}
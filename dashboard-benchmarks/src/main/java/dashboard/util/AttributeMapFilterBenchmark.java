@@ -0,0 +1,94 @@
+package dashboard.util;
+
+import dashboard.benchmarks.BenchmarkFixtures;
+import dashboard.domain.ARP;
+import dashboard.domain.ServiceProvider;
+import dashboard.shibboleth.ShibbolethHeader;
+import dashboard.shibboleth.ShibbolethPreAuthenticatedProcessingFilter;
+import dashboard.util.AttributeMapFilter.ServiceAttribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Filtering the attributes of a user against the ARP of every Service Provider that has one, with the compiled
+ * {@link AttributeValueMatcher}s and with the baseline that compiled a regular expression per filter on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttributeMapFilterBenchmark {
+
+    private List<ARP> arps;
+    private Map<ShibbolethHeader, List<String>> userAttributes;
+
+    @Setup
+    public void setUp() {
+        arps = BenchmarkFixtures.manage().getAllServiceProviders().stream()
+                .map(ServiceProvider::getArp)
+                .filter(arp -> arp != null && !arp.isNoArp())
+                .collect(toList());
+        userAttributes = BenchmarkFixtures.userAttributes();
+    }
+
+    @Benchmark
+    public void filterAttributes(Blackhole blackhole) {
+        for (ARP arp : arps) {
+            blackhole.consume(AttributeMapFilter.filterAttributes(arp, userAttributes));
+        }
+    }
+
+    @Benchmark
+    public void filterAttributesBaseline(Blackhole blackhole) {
+        for (ARP arp : arps) {
+            blackhole.consume(baselineFilterAttributes(arp.getAttributes(), userAttributes));
+        }
+    }
+
+    private static Collection<ServiceAttribute> baselineFilterAttributes(Map<String, List<String>> serviceAttributes,
+                                                                         Map<ShibbolethHeader, List<String>> userAttributes) {
+        Function<ServiceAttribute, List<String>> userValues = (serviceAttribute) -> {
+            ShibbolethHeader shibHeader = ShibbolethPreAuthenticatedProcessingFilter.shibHeaders.get(serviceAttribute.getName());
+            return Optional.ofNullable(userAttributes.get(shibHeader))
+                    .map(v -> baselineValuesToShow(serviceAttribute.getFilters(), v))
+                    .orElse(Collections.emptyList());
+        };
+        return serviceAttributes.entrySet().stream()
+                .map(entry -> new ServiceAttribute(entry.getKey(), entry.getValue()))
+                .map(serviceAttribute -> {
+                    serviceAttribute.addUserValues(userValues.apply(serviceAttribute));
+                    return serviceAttribute;
+                })
+                .collect(toList());
+    }
+
+    private static List<String> baselineValuesToShow(List<String> filters, List<String> rawValues) {
+        if (filters.isEmpty()) {
+            return rawValues;
+        }
+        Collection<Pattern> patterns = filters.stream().map(filter -> Pattern.compile(filter.replaceAll("\\*", ".*"))).collect(toList());
+        return rawValues.stream().filter(value -> patterns.stream().anyMatch(p -> p.matcher(value).matches())).collect(toList());
+    }
+}
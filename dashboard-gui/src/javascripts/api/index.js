@@ -7,6 +7,9 @@ import { emitter } from '../utils/flash'
 
 const apiPath = '/dashboard/api'
 
+// Last response body per catalog request, keyed on the ETag the server returned for it
+const eTagCache = {}
+
 export function apiUrl(path) {
   return apiPath + path
 }
@@ -14,7 +17,7 @@ export function apiUrl(path) {
 function validateResponse(res) {
   spinner.stop()
 
-  if (!res.ok) {
+  if (!res.ok && res.status !== 304) {
     const error = new Error(res.statusText)
     error.response = res
     throw error
@@ -52,6 +55,27 @@ export function fetchJson(path, options = {}) {
   return validFetch(path, options).then(parseJson)
 }
 
+function fetchJsonWithETag(path, currentUser = getCurrentUser()) {
+  const key = `${currentUser ? currentUser.getCurrentIdpId() : ''} ${path}`
+  const cached = eTagCache[key]
+  const options = cached ? { headers: { 'If-None-Match': cached.eTag } } : {}
+
+  return validFetch(path, options, currentUser).then((res) => {
+    if (res.status === 304 && cached) {
+      return JSON.parse(cached.body)
+    }
+    const eTag = res.headers.get('ETag')
+    return res.text().then((body) => {
+      if (eTag) {
+        eTagCache[key] = { eTag, body }
+      } else {
+        delete eTagCache[key]
+      }
+      return JSON.parse(body)
+    })
+  })
+}
+
 function fetchPost(path, body, options = {}) {
   const data = new FormData()
 
@@ -117,7 +141,7 @@ export function getUserData(redirect = 'manual') {
 }
 
 export function getApps() {
-  return fetchJson('/services')
+  return fetchJsonWithETag('/services')
 }
 
 export function getAppsForInvitationRequest(idpEntityId) {
@@ -179,7 +203,7 @@ export function getPolicies() {
 }
 
 export function getInstitutionServiceProviders() {
-  return fetchJson('/users/me/serviceproviders')
+  return fetchJsonWithETag('/users/me/serviceproviders')
 }
 
 export function getConnectedServiceProviders(idpId) {
@@ -195,7 +219,7 @@ export function sabRoles(institutionId) {
 }
 
 export function getAllowedAttributes() {
-  return fetchJson('/policies/attributes')
+  return fetchJsonWithETag('/policies/attributes')
 }
 
 export function getNewPolicy() {
@@ -304,10 +328,11 @@ export function exportApps(idp, ids) {
     { idp: idp, ids: ids },
     {
       headers: {
+        Accept: 'text/csv',
         'Content-Type': 'application/json',
       },
     }
-  ).then(parseJson)
+  ).then((res) => res.blob())
 }
 
 export function consentChangeRequest(data) {
@@ -495,14 +495,8 @@ export default function AppList({ apps, currentUser, facets: remoteFacets, conne
 
     setDownloading(true)
     const ids = filteredApps.map((app) => app.id)
-    exportApps(currentUser.getCurrentIdpId(), ids).then((res) => {
+    exportApps(currentUser.getCurrentIdpId(), ids).then((export_blob) => {
       const urlObject = window.URL || window.webkitURL || window
-      const lines = res.reduce((acc, arr) => {
-        acc.push(arr.join(','))
-        return acc
-      }, [])
-      const csvContent = lines.join('\n')
-      const export_blob = new Blob([csvContent])
       if ('msSaveBlob' in window.navigator) {
         window.navigator.msSaveBlob(export_blob, 'services.csv')
       } else if ('download' in HTMLAnchorElement.prototype) {
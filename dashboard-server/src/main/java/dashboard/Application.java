@@ -1,24 +1,25 @@
 package dashboard;
 
 import dashboard.manage.ClassPathResourceManage;
+import dashboard.manage.IdentityProviderCache;
 import dashboard.manage.Manage;
 import dashboard.manage.UrlResourceManage;
-import dashboard.pdp.PdpService;
-import dashboard.pdp.PdpServiceImpl;
-import dashboard.pdp.PdpServiceMock;
 import dashboard.sab.HttpClientTransport;
 import dashboard.sab.Sab;
 import dashboard.sab.SabClient;
 import dashboard.sab.SabClientMock;
 import dashboard.service.Services;
+import dashboard.service.impl.CachingJiraClient;
 import dashboard.service.impl.JiraClient;
 import dashboard.service.impl.JiraClientImpl;
 import dashboard.service.impl.JiraClientMock;
+import dashboard.service.impl.JiraOutbox;
 import dashboard.service.impl.ServicesImpl;
 import dashboard.shibboleth.mock.MockShibbolethFilter;
 import dashboard.stats.Stats;
 import dashboard.stats.StatsImpl;
 import dashboard.stats.StatsMock;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
@@ -27,6 +28,7 @@ import org.springframework.boot.autoconfigure.freemarker.FreeMarkerAutoConfigura
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.stream.Collectors;
@@ -53,8 +55,15 @@ public class Application {
     public Manage manage(@Value("${dashboard.feature.manage}") boolean manageEnabled,
                          @Value("${manage.username}") String username,
                          @Value("${manage.password}") String password,
-                         @Value("${manage.manageBaseUrl}") String manageBaseUrl) {
-        return manageEnabled ? new UrlResourceManage(username, password, manageBaseUrl) : new ClassPathResourceManage();
+                         @Value("${manage.manageBaseUrl}") String manageBaseUrl,
+                         @Value("${manage.metadataVersionSeconds}") long metadataVersionSeconds) {
+        return manageEnabled ? new UrlResourceManage(username, password, manageBaseUrl, metadataVersionSeconds) :
+                new ClassPathResourceManage();
+    }
+
+    @Bean
+    public IdentityProviderCache identityProviderCache(Manage manage) {
+        return new IdentityProviderCache(manage);
     }
 
     @Bean
@@ -73,17 +82,20 @@ public class Application {
                                  @Value("${jiraUsername}") String username,
                                  @Value("${jiraPassword}") String password,
                                  @Value("${jiraProjectKey}") String projectKey,
-                                 @Value("${jiraDueDateWeeks}") int dueDateWeeks) throws IOException {
-        return jiraEnabled ? new JiraClientImpl(baseUrl, username, password, projectKey, dueDateWeeks) :
-                new JiraClientMock(MockShibbolethFilter.idp);
+                                 @Value("${jiraDueDateWeeks}") int dueDateWeeks,
+                                 @Value("${jiraSearchCacheSeconds}") long searchCacheSeconds,
+                                 MeterRegistry meterRegistry) throws IOException {
+        return jiraEnabled ? new CachingJiraClient(new JiraClientImpl(baseUrl, username, password, projectKey, dueDateWeeks),
+                searchCacheSeconds, meterRegistry) : new JiraClientMock(MockShibbolethFilter.idp);
     }
 
     @Bean
-    public PdpService pdpService(@Value("${dashboard.feature.pdp}") boolean pdpEnabled,
-                                 @Value("${pdp.server}") String server,
-                                 @Value("${pdp.username}") String username,
-                                 @Value("${pdp.password}") String password) {
-        return pdpEnabled ? new PdpServiceImpl(server, username, password) : new PdpServiceMock();
+    public JiraOutbox jiraOutbox(JiraClient jiraClient,
+                                 @Value("${jiraOutboxDirectory}") File directory,
+                                 @Value("${jiraOutboxRetrySeconds}") long retrySeconds,
+                                 @Value("${jiraOutboxMaxAttempts}") int maxAttempts,
+                                 MeterRegistry meterRegistry) throws IOException {
+        return new JiraOutbox(jiraClient, directory, retrySeconds, maxAttempts, meterRegistry);
     }
 
 }
@@ -1,9 +1,11 @@
 package dashboard;
 
 import dashboard.filter.EnsureAccessToIdpFilter;
+import dashboard.manage.IdentityProviderCache;
 import dashboard.manage.Manage;
 import dashboard.sab.Sab;
 import dashboard.service.impl.JiraClient;
+import dashboard.shibboleth.IdentityProviderRestoringSecurityContextRepository;
 import dashboard.shibboleth.ShibbolethPreAuthenticatedProcessingFilter;
 import dashboard.shibboleth.ShibbolethUserDetailService;
 import dashboard.shibboleth.mock.MockShibbolethFilter;
@@ -53,6 +55,9 @@ public class ShibbolethSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private Manage manage;
 
+    @Autowired
+    private IdentityProviderCache identityProviderCache;
+
     @Autowired
     private Sab sab;
 
@@ -136,6 +141,8 @@ public class ShibbolethSecurityConfig extends WebSecurityConfigurerAdapter {
                 .logoutSuccessHandler(new DashboardLogoutSuccessHandler())
                 .addLogoutHandler(new DashboardLogoutHandler()).and()
                 .csrf().disable()
+                .securityContext().securityContextRepository(
+                        new IdentityProviderRestoringSecurityContextRepository(identityProviderCache)).and()
                 .addFilterBefore(
                         new ShibbolethPreAuthenticatedProcessingFilter(authenticationManagerBean(), manage, sab, jiraClient,
                                 dashboardAdmin, dashboardViewer, dashboardSuperUser, adminSufConextIdpRole,
@@ -143,7 +150,7 @@ public class ShibbolethSecurityConfig extends WebSecurityConfigurerAdapter {
                                 defaultLoa, loaLevels, authnContextLevels),
                         AbstractPreAuthenticatedProcessingFilter.class
                 )
-                .addFilterAfter(new EnsureAccessToIdpFilter(manage), ShibbolethPreAuthenticatedProcessingFilter.class)
+                .addFilterAfter(new EnsureAccessToIdpFilter(identityProviderCache), ShibbolethPreAuthenticatedProcessingFilter.class)
                 .authorizeRequests()
                 .antMatchers("/identity/**").hasRole("DASHBOARD_SUPER_USER")
                 .antMatchers("/dashboard/api/stats/**")
@@ -1,8 +1,11 @@
 package dashboard;
 
 import dashboard.control.GsonHttpMessageConverter;
+import dashboard.filter.CompressedResponseFilter;
 import dashboard.util.CookieThenAcceptHeaderLocaleResolver;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
@@ -45,6 +48,18 @@ public class WebConfig implements WebMvcConfigurer {
         return localeResolver;
     }
 
+    @Bean
+    public FilterRegistrationBean<CompressedResponseFilter> compressedResponseFilter(
+            @Value("${dashboard.compression.cache_bytes}") long maximumCacheBytes,
+            @Value("${dashboard.compression.min_size}") int minimumSize,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<CompressedResponseFilter> registration = new FilterRegistrationBean<>(
+                new CompressedResponseFilter(maximumCacheBytes, minimumSize, meterRegistry));
+        // only the catalog responses, which are large and identical for many users
+        registration.addUrlPatterns("/dashboard/api/services", "/dashboard/api/users/me/serviceproviders");
+        return registration;
+    }
+
     @Bean
     public HttpFirewall httpFirewall() {
         StrictHttpFirewall firewall = new StrictHttpFirewall();
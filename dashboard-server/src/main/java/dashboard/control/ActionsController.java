@@ -1,12 +1,29 @@
 package dashboard.control;
 
+import au.com.bytecode.opencsv.CSVWriter;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dashboard.domain.Action;
 import dashboard.domain.JiraFilter;
 import dashboard.domain.JiraResponse;
 import dashboard.service.ActionsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 import static dashboard.control.Constants.HTTP_X_IDP_ENTITY_ID;
 
@@ -14,6 +31,26 @@ import static dashboard.control.Constants.HTTP_X_IDP_ENTITY_ID;
 @RequestMapping(value = "/dashboard/api/actions", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ActionsController extends BaseController {
 
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private static final Map<String, Function<Action, String>> CSV_COLUMNS = ImmutableMap.<String, Function<Action, String>>builder()
+            .put("jiraKey", Action::getJiraKey)
+            .put("type", action -> Objects.toString(action.getType(), ""))
+            .put("status", action -> Objects.toString(action.getStatus(), ""))
+            .put("resolution", action -> Objects.toString(action.getResolution(), ""))
+            .put("requestDate", action -> date(action.getRequestDate()))
+            .put("updateDate", action -> date(action.getUpdateDate()))
+            .put("spEntityId", Action::getSpId)
+            .put("spName", Action::getSpName)
+            .put("idpEntityId", Action::getIdpId)
+            .put("idpName", Action::getIdpName)
+            .put("userName", Action::getUserName)
+            .put("userEmail", Action::getUserEmail)
+            .put("rejected", action -> String.valueOf(action.isRejected()))
+            .build();
+
+    private static final Gson gson = GsonHttpMessageConverter.GSON_BUILDER.create();
+
     @Autowired
     private ActionsService actionsService;
 
@@ -24,4 +61,42 @@ public class ActionsController extends BaseController {
         return createRestResponse(actionsService.searchTasks(idpEntityId, filter));
     }
 
+    /*
+     * All tasks of the IdP matching the filter - not only the page of the filter - as csv or as a json array
+     */
+    @PreAuthorize("hasAnyRole('DASHBOARD_ADMIN','DASHBOARD_VIEWER','DASHBOARD_SUPER_USER')")
+    @PostMapping(value = "/export", produces = {CSV_MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader(HTTP_X_IDP_ENTITY_ID) String idpEntityId,
+                                                        @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                        @RequestBody JiraFilter filter) {
+        if (!"csv".equals(format) && !"json".equals(format)) {
+            throw new IllegalArgumentException(String.format("Unknown format %s", format));
+        }
+        StreamingResponseBody responseBody = "csv".equals(format) ?
+                outputStream -> {
+                    CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                    csvWriter.writeNext(CSV_COLUMNS.keySet().toArray(new String[0]));
+                    actionsService.allTasks(idpEntityId, filter, action -> csvWriter.writeNext(CSV_COLUMNS.values().stream()
+                            .map(column -> column.apply(action))
+                            .toArray(String[]::new)));
+                    csvWriter.flush();
+                } :
+                outputStream -> {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                    JsonWriter jsonWriter = new JsonWriter(writer);
+                    jsonWriter.beginArray();
+                    actionsService.allTasks(idpEntityId, filter, action -> gson.toJson(action, Action.class, jsonWriter));
+                    jsonWriter.endArray();
+                    jsonWriter.flush();
+                };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("csv".equals(format) ? CSV_MEDIA_TYPE : MediaType.APPLICATION_JSON_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"tickets.%s\"", format))
+                .body(responseBody);
+    }
+
+    private static String date(ZonedDateTime date) {
+        return date == null ? "" : date.toOffsetDateTime().toString();
+    }
+
 }
@@ -0,0 +1,67 @@
+package dashboard.control;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import dashboard.domain.CoinUser;
+import dashboard.domain.IdentityProvider;
+import dashboard.domain.Policy.Attribute;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Strong ETags for the catalog endpoints. The tag is derived from everything that determines the response - the
+ * metadata version, the IdP, the locale and the user including its attributes - so it can be computed without
+ * building or serializing the response itself. The tag of the policy attributes is derived from the attributes
+ * themselves, as they are the same for all users.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @return the tag of the catalog of the user, or null when the metadata version is not known yet
+     */
+    public static String forCatalog(String metadataVersion, String idpEntityId, Locale locale, CoinUser user) {
+        if (metadataVersion == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(metadataVersion, StandardCharsets.UTF_8).putChar('|')
+                .putString(String.valueOf(idpEntityId), StandardCharsets.UTF_8).putChar('|')
+                .putString(locale.getLanguage(), StandardCharsets.UTF_8).putChar('|')
+                .putString(String.valueOf(user.getUid()), StandardCharsets.UTF_8).putChar('|')
+                .putBoolean(user.isGuest());
+        new TreeSet<>(user.getAuthorityEnums()).forEach(authority -> hasher.putString(authority.name(), StandardCharsets.UTF_8));
+        hasher.putChar('|');
+        user.getSwitchedToIdp().map(IdentityProvider::getId)
+                .ifPresent(switchedToIdp -> hasher.putString(switchedToIdp, StandardCharsets.UTF_8));
+        hasher.putChar('|');
+        Set<String> invitationRequestEntities = user.getInvitationRequestEntities();
+        if (invitationRequestEntities != null) {
+            new TreeSet<>(invitationRequestEntities).forEach(entityId -> hasher.putString(entityId, StandardCharsets.UTF_8).putChar(','));
+        }
+        hasher.putChar('|');
+        // the filtered user attributes of the services are derived from the attributes of the user
+        new TreeMap<>(user.getAttributeMap()).forEach((header, values) -> {
+            hasher.putString(header.name(), StandardCharsets.UTF_8).putChar('=');
+            values.forEach(value -> hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putChar(','));
+            hasher.putChar(';');
+        });
+        return "\"" + hasher.hash().toString() + "\"";
+    }
+
+    public static String forAttributes(List<Attribute> attributes, Locale locale) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(locale.getLanguage(), StandardCharsets.UTF_8).putChar('|');
+        attributes.forEach(attribute -> hasher
+                .putString(String.valueOf(attribute.getName()), StandardCharsets.UTF_8).putChar('=')
+                .putString(String.valueOf(attribute.getValue()), StandardCharsets.UTF_8).putChar(','));
+        return "\"" + hasher.hash().toString() + "\"";
+    }
+}
@@ -1,17 +1,34 @@
 package dashboard.control;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import dashboard.domain.CoinAuthority.Authority;
 import dashboard.domain.CoinUser;
 import dashboard.domain.Service;
+import dashboard.domain.ServiceSummary;
 import dashboard.util.AttributeMapFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -20,6 +37,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Since dashboard does not control all classes that are serialized into
  * JSON this class can be used to add properties to json.
  * <p>
+ * The response is written in one pass to the given {@link Writer}. Services are streamed and get their
+ * filtered user attributes appended just before their closing brace, only the (small) CoinUser is enriched
+ * as a json tree.
+ * <p>
+ * The user independent part of a Service with a {@link Service#getFragmentKey() fragment key} is serialized only
+ * once and cached as UTF-8, subsequent responses splice the cached fragment in and only serialize the filtered user
+ * attributes. The {@link ServiceSummary}s of the services overview - nested in a map payload - are cached as a whole.
+ * When written to an output stream the cached bytes are copied as they are.
+ * <p>
  * <b>This class can not be an instance variable on a spring managed bean since it uses the current user.</b>
  */
 public class EnrichJson {
@@ -31,49 +57,167 @@ public class EnrichJson {
     public static final String DASHBOARD_MEMBER = "dashboardMember";
 
     private final static Logger LOG = LoggerFactory.getLogger(EnrichJson.class);
-    private Map<Class<?>, JsonApplier> mapping = new HashMap<>();
+    private final static Gson gson = GsonHttpMessageConverter.GSON_BUILDER.create();
+    private final static Cache<String, byte[]> serviceFragments = CacheBuilder.newBuilder()
+            .maximumWeight(16 * 1024 * 1024)
+            .<String, byte[]>weigher((key, fragment) -> fragment.length)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
 
-    private CoinUser currentUser;
-    private JsonElement json;
+    private final boolean statsEnabled;
+    private final CoinUser currentUser;
 
-    @SuppressWarnings("unchecked")
     private EnrichJson(boolean statsEnabled, CoinUser coinUser) {
         LOG.debug("Using {} for user {}", statsEnabled, coinUser.getDisplayName());
+        this.statsEnabled = statsEnabled;
         this.currentUser = coinUser;
-        Gson gson = GsonHttpMessageConverter.GSON_BUILDER.create();
-
-        mapping.put(CoinUser.class, (coinUserJsonElement, payload) -> {
-            JsonObject user = coinUserJsonElement.getAsJsonObject();
-
-            filterDashboardAuthorities(user);
-
-            user.addProperty(SUPER_USER, ((CoinUser) payload).isSuperUser());
-            user.addProperty(DASHBOARD_ADMIN, ((CoinUser) payload).isDashboardAdmin());
-            user.addProperty(DASHBOARD_VIEWER, ((CoinUser) payload).isDashboardViewer());
-            user.addProperty(DASHBOARD_MEMBER, ((CoinUser) payload).isDashboardMember());
-            user.addProperty("statsEnabled", statsEnabled);
-        });
-
-        mapping.put(Service.class, (serviceJsonElement, payload) -> {
-            Service service = (Service) payload;
-            JsonArray filteredUserAttributes = new JsonArray();
-            if (service.getArp() != null && !service.getArp().isNoArp() && !service.getArp().isNoAttrArp()) {
-                Collection<AttributeMapFilter.ServiceAttribute> serviceAttributes = AttributeMapFilter
-                        .filterAttributes(service.getArp().getAttributes(), currentUser.getAttributeMap());
-                serviceAttributes.stream()
-                        .map(gson::toJsonTree)
-                        .forEach(filteredUserAttributes::add);
-            }
-            serviceJsonElement.getAsJsonObject().add(FILTERED_USER_ATTRIBUTES, filteredUserAttributes);
-        });
     }
 
     public static EnrichJson forUser(boolean statsEnabled, CoinUser currentUser) {
         return new EnrichJson(statsEnabled, currentUser);
     }
 
+    public void write(RestResponse<?> restResponse, Writer writer) throws IOException {
+        write(restResponse, new EnrichingJsonWriter(writer, null));
+    }
+
+    /**
+     * Writes the response as UTF-8.
+     */
+    public void write(RestResponse<?> restResponse, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        write(restResponse, new EnrichingJsonWriter(writer, outputStream));
+    }
+
+    private void write(RestResponse<?> restResponse, EnrichingJsonWriter jsonWriter) throws IOException {
+        checkNotNull(restResponse);
+
+        jsonWriter.setHtmlSafe(true);
+        jsonWriter.setSerializeNulls(false);
+
+        jsonWriter.beginObject();
+        Object payload = restResponse.getPayload();
+        if (payload != null) {
+            jsonWriter.name("payload");
+            writeElement(jsonWriter, payload);
+        }
+        jsonWriter.name("language").value(restResponse.getLanguage());
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    private void writeElement(EnrichingJsonWriter jsonWriter, Object element) throws IOException {
+        if (element == null) {
+            jsonWriter.nullValue();
+        } else if (element instanceof List) {
+            jsonWriter.beginArray();
+            for (Object child : (List<?>) element) {
+                writeElement(jsonWriter, child);
+            }
+            jsonWriter.endArray();
+        } else if (element instanceof Map && hasStringKeys((Map<?, ?>) element)) {
+            jsonWriter.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) element).entrySet()) {
+                jsonWriter.name((String) entry.getKey());
+                writeElement(jsonWriter, entry.getValue());
+            }
+            jsonWriter.endObject();
+        } else if (element instanceof ServiceSummary && ((ServiceSummary) element).getFragmentKey() != null) {
+            ServiceSummary summary = (ServiceSummary) element;
+            jsonWriter.spliceValue(fragment("summary|" + summary.getFragmentKey(), () -> serialize(summary,
+                    ServiceSummary.class, 0)), "");
+        } else if (element instanceof Service) {
+            Service service = (Service) element;
+            if (service.getFragmentKey() == null) {
+                jsonWriter.enrichNextObject(writer -> writeFilteredUserAttributes(writer, service));
+                gson.toJson(service, Service.class, jsonWriter);
+                jsonWriter.enrichNextObject(null);
+            } else {
+                writeServiceFragment(jsonWriter, service);
+            }
+        } else if (element instanceof CoinUser) {
+            JsonObject user = gson.toJsonTree(element).getAsJsonObject();
+            enrichCoinUser(user, (CoinUser) element);
+            gson.toJson(user, jsonWriter);
+        } else {
+            gson.toJson(element, element.getClass(), jsonWriter);
+        }
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        return map.keySet().stream().allMatch(key -> key instanceof String);
+    }
+
+    private void writeServiceFragment(EnrichingJsonWriter jsonWriter, Service service) throws IOException {
+        // the fragment is the service object without its closing brace, the attributes object without its opening one
+        byte[] fragment = fragment(service.getFragmentKey(), () -> serialize(service, Service.class, 1));
+        StringWriter attributes = new StringWriter();
+        JsonWriter attributesWriter = newJsonWriter(attributes);
+        attributesWriter.beginObject();
+        writeFilteredUserAttributes(attributesWriter, service);
+        attributesWriter.endObject();
+
+        StringBuffer buffer = attributes.getBuffer();
+        String suffix = (fragment.length > 1 ? "," : "") + buffer.substring(1);
+        jsonWriter.spliceValue(fragment, suffix);
+    }
+
+    private static byte[] fragment(String key, Callable<byte[]> serializer) throws IOException {
+        try {
+            return serviceFragments.get(key, serializer);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static byte[] serialize(Object value, Class<?> type, int trailingCharacters) throws IOException {
+        StringWriter fragment = new StringWriter();
+        gson.toJson(value, type, newJsonWriter(fragment));
+        StringBuffer buffer = fragment.getBuffer();
+        return buffer.substring(0, buffer.length() - trailingCharacters).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonWriter newJsonWriter(Writer writer) {
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setHtmlSafe(true);
+        jsonWriter.setSerializeNulls(false);
+        return jsonWriter;
+    }
+
+    private void writeFilteredUserAttributes(JsonWriter jsonWriter, Service service) throws IOException {
+        jsonWriter.name(FILTERED_USER_ATTRIBUTES);
+        jsonWriter.beginArray();
+        if (service.getArp() != null && !service.getArp().isNoArp() && !service.getArp().isNoAttrArp()) {
+            Collection<AttributeMapFilter.ServiceAttribute> serviceAttributes = AttributeMapFilter
+                    .filterAttributes(service.getArp(), currentUser.getAttributeMap());
+            for (AttributeMapFilter.ServiceAttribute serviceAttribute : serviceAttributes) {
+                gson.toJson(serviceAttribute, AttributeMapFilter.ServiceAttribute.class, jsonWriter);
+            }
+        }
+        jsonWriter.endArray();
+    }
+
+    private void enrichCoinUser(JsonObject user, CoinUser coinUser) {
+        filterDashboardAuthorities(user);
+
+        // the identity providers are not part of the serialized (session) state of the user
+        user.add("currentIdp", gson.toJsonTree(coinUser.getIdp()));
+        user.add("institutionIdps", gson.toJsonTree(coinUser.getInstitutionIdps()));
+        coinUser.getSwitchedToIdp().ifPresent(idp -> user.add("switchedToIdp", gson.toJsonTree(idp)));
+
+        user.addProperty(SUPER_USER, coinUser.isSuperUser());
+        user.addProperty(DASHBOARD_ADMIN, coinUser.isDashboardAdmin());
+        user.addProperty(DASHBOARD_VIEWER, coinUser.isDashboardViewer());
+        user.addProperty(DASHBOARD_MEMBER, coinUser.isDashboardMember());
+        user.addProperty("statsEnabled", statsEnabled);
+    }
+
     private void filterDashboardAuthorities(JsonObject user) {
-        Iterator<JsonElement> authorities = user.getAsJsonArray("grantedAuthorities").iterator();
+        JsonArray grantedAuthorities = user.getAsJsonArray("grantedAuthorities");
+        if (grantedAuthorities == null) {
+            return;
+        }
+        Iterator<JsonElement> authorities = grantedAuthorities.iterator();
 
         while (authorities.hasNext()) {
             JsonElement authority = authorities.next();
@@ -85,33 +229,77 @@ public class EnrichJson {
         }
     }
 
-    public EnrichJson json(JsonElement json) {
-        this.json = json;
-        return this;
+    private interface JsonAppender {
+        void append(JsonWriter jsonWriter) throws IOException;
     }
 
-    public void forPayload(Object payload) {
-        checkNotNull(json);
-        checkNotNull(payload);
+    /**
+     * JsonWriter that can append extra properties to the next object written, right before that object is closed,
+     * and that can splice in UTF-8 encoded json.
+     */
+    private static final class EnrichingJsonWriter extends JsonWriter {
 
-        JsonElement payloadAsJsonElement = json.getAsJsonObject().get("payload");
-        if (payloadAsJsonElement.isJsonObject()) {
-            if (mapping.containsKey(payload.getClass())) {
-                mapping.get(payload.getClass()).apply(payloadAsJsonElement, payload);
+        private final Writer out;
+        private final OutputStream utf8Out;
+        private int depth;
+        private int enrichDepth = -1;
+        private JsonAppender appender;
+
+        private EnrichingJsonWriter(Writer out, OutputStream utf8Out) {
+            super(out);
+            this.out = out;
+            this.utf8Out = utf8Out;
+        }
+
+        /**
+         * Writes the UTF-8 encoded json followed by the suffix as the next value. Written to a stream the bytes are
+         * copied as they are, otherwise they are decoded.
+         */
+        private void spliceValue(byte[] utf8Json, String suffix) throws IOException {
+            if (utf8Out == null) {
+                jsonValue(new String(utf8Json, StandardCharsets.UTF_8) + suffix);
+                return;
             }
-        } else if (payloadAsJsonElement.isJsonArray()) {
-            JsonArray jsonArray = payloadAsJsonElement.getAsJsonArray();
-            for (int i = 0; i < jsonArray.size(); i++) {
-                Class<?> classOfPayloadElement = ((List<?>) payload).get(i).getClass();
-
-                if (mapping.containsKey(classOfPayloadElement)) {
-                    mapping.get(classOfPayloadElement).apply(jsonArray.get(i), ((List<?>) payload).get(i));
-                }
+            // an empty value writes the separator and moves the writer past the value
+            jsonValue("");
+            out.flush();
+            utf8Out.write(utf8Json);
+            out.write(suffix);
+        }
+
+        private void enrichNextObject(JsonAppender appender) {
+            this.enrichDepth = depth + 1;
+            this.appender = appender;
+        }
+
+        @Override
+        public JsonWriter beginObject() throws IOException {
+            depth++;
+            return super.beginObject();
+        }
+
+        @Override
+        public JsonWriter endObject() throws IOException {
+            if (appender != null && depth == enrichDepth) {
+                JsonAppender current = appender;
+                appender = null;
+                enrichDepth = -1;
+                current.append(this);
             }
+            depth--;
+            return super.endObject();
         }
-    }
 
-    private interface JsonApplier {
-        void apply(JsonElement element, Object payload);
+        @Override
+        public JsonWriter beginArray() throws IOException {
+            depth++;
+            return super.beginArray();
+        }
+
+        @Override
+        public JsonWriter endArray() throws IOException {
+            depth--;
+            return super.endArray();
+        }
     }
 }
@@ -13,8 +13,11 @@ import org.springframework.http.converter.AbstractHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
@@ -31,10 +34,7 @@ public class GsonHttpMessageConverter extends AbstractHttpMessageConverter<RestR
             .registerTypeAdapter(ShibbolethHeader.class, new ShibbolethHeaderTypeAdapter().nullSafe());
     private boolean statsEnabled;
 
-    private Gson gson;
-
     public GsonHttpMessageConverter(boolean statsEnabled) {
-        this.gson = GSON_BUILDER.create();
         this.statsEnabled = statsEnabled;
     }
 
@@ -68,15 +68,19 @@ public class GsonHttpMessageConverter extends AbstractHttpMessageConverter<RestR
     @Override
     protected void writeInternal(RestResponse<?> objectRestResponse, HttpOutputMessage outputMessage) throws
             IOException, HttpMessageNotWritableException {
-        JsonElement json = gson.toJsonTree(objectRestResponse);
-        EnrichJson.forUser(statsEnabled, SpringSecurity.getCurrentUser())
-                .json(json)
-                .forPayload(objectRestResponse.getPayload());
-
         Charset charset = getCharset(outputMessage.getHeaders());
-
-        try (OutputStreamWriter jsonWriter = new OutputStreamWriter(outputMessage.getBody(), charset)) {
-            gson.toJson(json, jsonWriter);
+        EnrichJson enrichJson = EnrichJson.forUser(statsEnabled, SpringSecurity.getCurrentUser());
+
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            try (OutputStream outputStream = outputMessage.getBody()) {
+                enrichJson.write(objectRestResponse, outputStream);
+            } catch (JsonIOException e) {
+                throw new HttpMessageNotWritableException("Could not write JSON: " + e.getMessage(), e);
+            }
+            return;
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputMessage.getBody(), charset))) {
+            enrichJson.write(objectRestResponse, writer);
         } catch (JsonIOException e) {
             throw new HttpMessageNotWritableException("Could not write JSON: " + e.getMessage(), e);
         }
@@ -20,9 +20,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -116,8 +118,12 @@ public class PoliciesController extends BaseController {
     }
 
     @RequestMapping(path = "/attributes", method = GET)
-    public RestResponse<List<Attribute>> attributes() {
-        return createRestResponse(pdpService.allowedAttributes());
+    public RestResponse<List<Attribute>> attributes(Locale locale, WebRequest webRequest) {
+        List<Attribute> attributes = pdpService.allowedAttributes();
+        if (webRequest.checkNotModified(ETags.forAttributes(attributes, locale))) {
+            return null;
+        }
+        return createRestResponse(attributes);
     }
 
     private void sendNewPolicyWithoutEnforcementDecisionEnabledEmail(Policy policy, CoinUser user) {
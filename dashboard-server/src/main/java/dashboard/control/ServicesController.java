@@ -1,22 +1,31 @@
 package dashboard.control;
 
+import au.com.bytecode.opencsv.CSVWriter;
+import com.google.common.collect.ImmutableMap;
 import dashboard.domain.*;
 import dashboard.manage.EntityType;
 import dashboard.manage.Manage;
 import dashboard.service.ActionsService;
 import dashboard.service.Services;
+import dashboard.service.impl.ServiceFacets;
 import dashboard.util.SpringSecurity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -33,6 +42,28 @@ public class ServicesController extends BaseController {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServicesController.class);
 
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private static final Map<String, Function<Service, String>> CSV_COLUMNS = ImmutableMap.<String, Function<Service, String>>builder()
+            .put("id", service -> String.valueOf(service.getId()))
+            .put("name", service -> stripBreakingWhitespace(service.getName()))
+            .put("organisation-name", service -> stripBreakingWhitespace(service.getOrganisation()))
+            .put("entityID", Service::getSpEntityId)
+            .put("description", service -> stripBreakingWhitespace(service.getDescription()))
+            .put("app-url", Service::getAppUrl)
+            .put("wiki-url", Service::getWikiUrl)
+            .put("support-mail", Service::getSupportMail)
+            .put("connected", service -> String.valueOf(service.isConnected()))
+            .put("licenseStatus", service -> service.getLicenseStatus() != null ?
+                    service.getLicenseStatus().name() : LicenseStatus.UNKNOWN.name())
+            .put("publishedInEdugain", service -> String.valueOf(service.isPublishedInEdugain()))
+            .put("singleTenant", service -> String.valueOf(service.isExampleSingleTenant()))
+            .put("strongAuthentication", service -> String.valueOf(service.isStrongAuthentication()))
+            .put("arpEnabled", service -> String.valueOf(service.getArp() != null && !service.getArp().isNoArp()))
+            .put("arpAttributes", service -> service.getArp() != null ?
+                    String.join(" - ", service.getArp().getAttributes().keySet()) : "")
+            .build();
+
     @Autowired
     private Services services;
 
@@ -42,6 +73,9 @@ public class ServicesController extends BaseController {
     @Autowired
     private ActionsService actionsService;
 
+    @Autowired
+    private ServiceFacets serviceFacets;
+
     @Value("${manage.manageBaseUrl}")
     private String manageBaseUrl;
 
@@ -49,12 +83,22 @@ public class ServicesController extends BaseController {
     private boolean dashboardStepupEnabled;
 
     @RequestMapping
-    public RestResponse<Map<String, Object>> index(@RequestHeader(HTTP_X_IDP_ENTITY_ID) String idpEntityId, Locale locale)
-            throws IOException {
+    public RestResponse<Map<String, Object>> index(@RequestHeader(HTTP_X_IDP_ENTITY_ID) String idpEntityId, Locale locale,
+                                                   WebRequest webRequest) throws IOException {
+        String metadataVersion = manage.getMetadataVersion();
+        CoinUser currentUser = SpringSecurity.getCurrentUser();
+        String eTag = ETags.forCatalog(metadataVersion, idpEntityId, locale, currentUser);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         List<Service> servicesForIdp = services.getServicesForIdp(idpEntityId, false, locale);
-        List<Category> categories = getCategories(servicesForIdp);
+        // besides the metadata the services of an IdP only differ for guests and pending invitation requests
+        String userVariant = String.join("|", String.valueOf(currentUser.isGuest()),
+                String.valueOf(new TreeSet<>(currentUser.getInvitationRequestEntities())));
+        List<Category> categories = serviceFacets.facets(idpEntityId, locale, userVariant, metadataVersion,
+                servicesForIdp);
         Map<String, Object> result = new HashMap<>();
-        result.put("apps", servicesForIdp);
+        result.put("apps", summaries(servicesForIdp));
         result.put("facets", categories);
         return createRestResponse(result);
     }
@@ -64,36 +108,27 @@ public class ServicesController extends BaseController {
             throws IOException {
         List<Service> servicesForIdp = services.getServicesForIdp(idpEntityId, true, locale);
         Map<String, Object> result = new HashMap<>();
-        result.put("apps", servicesForIdp);
+        result.put("apps", summaries(servicesForIdp));
         return createRestResponse(result);
     }
 
-    private List<Category> getCategories(List<Service> servicesForIdp) {
-        Map<String, List<Category>> groupedCategories = servicesForIdp.stream().map(s -> s.getCategories()).flatMap
-                (Collection::stream).collect(groupingBy(Category::getName));
-
-        //ensure we make the values unique
-        return groupedCategories.entrySet().stream().map(entry -> {
-            List<CategoryValue> categoryValues = entry.getValue().stream().map(cat -> cat.getValues().stream().map
-                            (CategoryValue::getValue)).flatMap(Function.identity()).collect(toSet()).stream().map
-                            (CategoryValue::new)
-                    .collect(toList());
-            return new Category(entry.getKey(), "type_of_service", categoryValues);
-        }).collect(toList());
-    }
-
     @RequestMapping(value = "/connected")
-    public RestResponse<List<Service>> connected(@RequestHeader(HTTP_X_IDP_ENTITY_ID) String idpEntityId, Locale
+    public RestResponse<List<ServiceSummary>> connected(@RequestHeader(HTTP_X_IDP_ENTITY_ID) String idpEntityId, Locale
             locale) throws IOException {
         return createRestResponse(services.getServicesForIdp(idpEntityId, false, locale).stream()
                 .filter(Service::isConnected)
+                .map(ServiceSummary::new)
                 .collect(toList()));
     }
 
     @PostMapping(value = "/by-entity-ids")
-    public RestResponse<List<Service>> byEnntityIds(@RequestBody List<String> entityIds, Locale locale) throws IOException {
+    public RestResponse<List<ServiceSummary>> byEnntityIds(@RequestBody List<String> entityIds, Locale locale) throws IOException {
         List<Service> servicesByEntityIds = services.getServicesByEntityIds(entityIds, locale);
-        return createRestResponse(servicesByEntityIds);
+        return createRestResponse(summaries(servicesByEntityIds));
+    }
+
+    private static List<ServiceSummary> summaries(List<Service> services) {
+        return services.stream().map(ServiceSummary::new).collect(toList());
     }
 
     @RequestMapping(value = "/idps")
@@ -122,54 +157,37 @@ public class ServicesController extends BaseController {
     }
 
 
-    @PostMapping(value = "/download")
-    public List<String[]> download(@RequestBody Map<String, Object> body,
-                                   Locale locale) throws IOException {
-        String idpEntityId = (String) body.get("idp");
-        List<Integer> ids = (List<Integer>) body.get("ids");
-        List<Service> services = this.services.getServicesForIdp(idpEntityId, false, locale);
-        Stream<String[]> values = ids.stream()
-                .map(id -> getServiceById(services, id.longValue()))
-                .flatMap(opt -> opt.map(Stream::of).orElse(Stream.empty()))
-                .map(service -> {
-                    LicenseStatus licenseStatus = service.getLicenseStatus();
-                    ARP arp = service.getArp();
-                    return new String[]{
-                            String.valueOf(service.getId()),
-                            stripBreakingWhitespace(service.getName()),
-                            stripBreakingWhitespace(service.getOrganisation()),
-                            service.getSpEntityId(),
-                            stripBreakingWhitespace(service.getDescription()),
-                            service.getAppUrl(),
-                            service.getWikiUrl(),
-                            service.getSupportMail(),
-                            String.valueOf(service.isConnected()),
-                            licenseStatus != null ? licenseStatus.name() : LicenseStatus.UNKNOWN.name(),
-                            String.valueOf(service.isPublishedInEdugain()),
-                            String.valueOf(service.isExampleSingleTenant()),
-                            String.valueOf(service.isStrongAuthentication()),
-                            String.valueOf(arp != null ? !arp.isNoArp() : false),
-                            arp != null ? arp.getAttributes().keySet().stream().collect(joining(" - ")) : ""};
-                });
-
-        Stream<String[]> headers = Stream.<String[]>of(new String[]{
-                "id", "name", "organisation-name","entityID", "description", "app-url", "wiki-url", "support-mail",
-                "connected", "licenseStatus",
-                "publishedInEdugain", "singleTenant", "strongAuthentication",
-                "arpEnabled", "arpAttributes"});
-
-        List<String[]> rows = Stream.concat(headers, values).collect(toList());
-        return rows;
+    @PostMapping(value = "/download", produces = CSV_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> download(@RequestBody ServicesDownloadRequest body,
+                                                          Locale locale) throws IOException {
+        List<String> columns = body.getColumns() != null ? body.getColumns() : new ArrayList<>(CSV_COLUMNS.keySet());
+        columns.stream().filter(column -> !CSV_COLUMNS.containsKey(column)).findAny().ifPresent(column -> {
+            throw new IllegalArgumentException(String.format("Unknown column %s", column));
+        });
+
+        // the selected services are few and returned in the order of the ids, all services are built while written
+        Stream<Service> services = body.getIds() == null ?
+                this.services.streamServicesForIdp(body.getIdp(), false, locale) :
+                this.services.getServicesForIdpByIds(body.getIdp(), body.getIds(), locale).stream();
+        List<Function<Service, String>> columnValues = columns.stream().map(CSV_COLUMNS::get).collect(toList());
+
+        StreamingResponseBody responseBody = outputStream -> {
+            CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            csvWriter.writeNext(columns.toArray(new String[0]));
+            services.forEach(service ->
+                    csvWriter.writeNext(columnValues.stream().map(column -> column.apply(service)).toArray(String[]::new)));
+            csvWriter.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CSV_MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"services.csv\"")
+                .body(responseBody);
     }
 
-    private String stripBreakingWhitespace(String input) {
+    private static String stripBreakingWhitespace(String input) {
         return StringUtils.hasText(input) ? input.trim().replaceAll("[\t\n\r;,]+", "") : "";
     }
 
-    private Optional<Service> getServiceById(List<Service> services, Long id) {
-        return services.stream().filter(service -> service.getId() == id).findFirst();
-    }
-
     @RequestMapping(value = "/detail")
     public ResponseEntity<RestResponse<Service>> get(@RequestHeader(HTTP_X_IDP_ENTITY_ID) String idpEntityId,
                                                      @RequestParam Long spId,
@@ -190,6 +208,9 @@ public class ServicesController extends BaseController {
         service.setSupportMail(null);
         service.setContactPersons(Collections.emptyList());
         service.setManipulationNotes(null);
+        if (service.getFragmentKey() != null) {
+            service.setFragmentKey(service.getFragmentKey() + "|erased");
+        }
         return service;
     }
 
@@ -245,8 +266,8 @@ public class ServicesController extends BaseController {
             return Optional.empty();
         }
 
-        List<Service> services = this.services.getServicesForIdp(idpEntityId, false, locale);
-        Optional<Service> optional = services.stream().filter(s -> s.getSpEntityId().equals(spEntityId)).findFirst();
+        Optional<Service> optional = this.services.getServiceForIdp(idpEntityId, spEntityId,
+                EntityType.valueOf(typeMetaData), false, locale);
 
         if (optional.isPresent()) {
             Service service = optional.get();
@@ -278,11 +299,11 @@ public class ServicesController extends BaseController {
                 } else {
                     metaDataIdentifiers = manage.deactivateConnectionRequests(identityProvider, spEntityId, EntityType.valueOf(typeMetaData), comments);
                 }
-                metaDataIdentifiers.forEach(identifier -> {
+                List<String> manageUrls = metaDataIdentifiers.stream().map(identifier -> {
                     String entityType = identifier.equals(identityProvider.getInternalId()) ? EntityType.saml20_idp.name() : typeMetaData;
-                    action.addManageUrl(String.format("%s/metadata/%s/%s/requests", manageBaseUrl, entityType, identifier));
-                });
-                return Optional.of(actionsService.create(action));
+                    return String.format("%s/metadata/%s/%s/requests", manageBaseUrl, entityType, identifier);
+                }).collect(toList());
+                return Optional.of(actionsService.create(action.unbuild().manageUrls(manageUrls).build()));
             }
         }
 
@@ -21,6 +21,10 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.servlet.http.HttpServletRequest;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -29,6 +33,15 @@ import java.util.stream.Collectors;
 public class SpDashboardController extends BaseController {
 
     private static final Logger LOG = LoggerFactory.getLogger(SpDashboardController.class);
+    private static final String SAB_ROLE = "SURFconextverantwoordelijke";
+    private static final int MAXIMUM_CONNECTION_REQUESTS = 100;
+    private static final int INVITES_IN_PARALLEL = 4;
+
+    private final ExecutorService inviteExecutor = Executors.newFixedThreadPool(INVITES_IN_PARALLEL, runnable -> {
+        Thread thread = new Thread(runnable, "sp-invites");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private ActionsService actionsService;
     private MailBox mailbox;
@@ -59,17 +72,85 @@ public class SpDashboardController extends BaseController {
 
         // get data
         String idpEntityId = serviceConnectionRequest.getIdpEntityId();
-        Collection<SabPerson> sabPersons = sabClient.getSabEmailsForOrganization(idpEntityId, "SURFconextverantwoordelijke");
+        Collection<SabPerson> sabPersons = sabClient.getSabEmailsForOrganization(idpEntityId, SAB_ROLE);
 
         Optional<IdentityProvider> optionalIdp = manage.getIdentityProvider(idpEntityId, false);
-        String spEntityId = serviceConnectionRequest.getSpEntityId();
-        Optional<ServiceProvider> optionalSp = manage.getServiceProvider(spEntityId, EntityType.valueOf(serviceConnectionRequest.getTypeMetaData()), false);
+        Optional<ServiceProvider> optionalSp = serviceProvider(serviceConnectionRequest);
         if (!optionalSp.isPresent() || !optionalIdp.isPresent()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
-        IdentityProvider idp = optionalIdp.get();
-        ServiceProvider sp = optionalSp.get();
 
+        Action action = invite(serviceConnectionRequest, optionalIdp.get(), optionalSp.get(), sabPersons);
+
+        return ResponseEntity.ok(Collections.singletonMap("jiraKey", action.getJiraKey()));
+    }
+
+    /*
+     * Invites many IdPs at once. The IdPs are looked up in bulk, the SAB lookups and the Jira tickets are done
+     * concurrently - at most INVITES_IN_PARALLEL at a time - and the result has the status of every request in order.
+     */
+    @RequestMapping(value = "serviceConnectionRequests", method = RequestMethod.PUT)
+    public ResponseEntity<List<Map<String, Object>>> connectionRequests(
+            @RequestBody List<ServiceConnectionRequest> serviceConnectionRequests, HttpServletRequest request) {
+        LOG.debug("authenticating serviceProvider request for {} connections", serviceConnectionRequests.size());
+
+        if (invalidUser(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (serviceConnectionRequests.size() > MAXIMUM_CONNECTION_REQUESTS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        Set<String> idpEntityIds = serviceConnectionRequests.stream()
+                .map(ServiceConnectionRequest::getIdpEntityId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, IdentityProvider> identityProviders = manage.getIdentityProviders(idpEntityIds, false).stream()
+                .collect(Collectors.toMap(Provider::getId, Function.identity(), (first, second) -> first));
+        Map<String, CompletableFuture<Collection<SabPerson>>> sabPersons = identityProviders.keySet().stream()
+                .collect(Collectors.toMap(Function.identity(), idpEntityId -> CompletableFuture.supplyAsync(
+                        () -> sabClient.getSabEmailsForOrganization(idpEntityId, SAB_ROLE), inviteExecutor)));
+        Map<String, Optional<ServiceProvider>> serviceProviders = new HashMap<>();
+
+        List<CompletableFuture<Map<String, Object>>> results = serviceConnectionRequests.stream()
+                .map(serviceConnectionRequest -> {
+                    IdentityProvider idp = identityProviders.get(serviceConnectionRequest.getIdpEntityId());
+                    Optional<ServiceProvider> sp = serviceProviders.computeIfAbsent(
+                            serviceConnectionRequest.getSpEntityId() + "|" + serviceConnectionRequest.getTypeMetaData(),
+                            key -> serviceProvider(serviceConnectionRequest));
+                    if (idp == null || !sp.isPresent()) {
+                        return CompletableFuture.completedFuture(result(serviceConnectionRequest, HttpStatus.BAD_REQUEST,
+                                "error", "Unknown IdP or SP"));
+                    }
+                    return sabPersons.get(idp.getId())
+                            .thenApplyAsync(persons -> invite(serviceConnectionRequest, idp, sp.get(), persons), inviteExecutor)
+                            .handle((action, e) -> {
+                                if (e != null) {
+                                    LOG.error("Failed to invite {} for {}", serviceConnectionRequest.getIdpEntityId(),
+                                            serviceConnectionRequest.getSpEntityId(), e);
+                                    return result(serviceConnectionRequest, HttpStatus.INTERNAL_SERVER_ERROR, "error",
+                                            String.valueOf(e.getCause() == null ? e.getMessage() : e.getCause().getMessage()));
+                                }
+                                return result(serviceConnectionRequest, HttpStatus.OK, "jiraKey", action.getJiraKey());
+                            });
+                })
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    private Optional<ServiceProvider> serviceProvider(ServiceConnectionRequest serviceConnectionRequest) {
+        EntityType entityType;
+        try {
+            entityType = EntityType.valueOf(serviceConnectionRequest.getTypeMetaData());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return Optional.empty();
+        }
+        return manage.getServiceProvider(serviceConnectionRequest.getSpEntityId(), entityType, false);
+    }
+
+    private Action invite(ServiceConnectionRequest serviceConnectionRequest, IdentityProvider idp, ServiceProvider sp,
+                          Collection<SabPerson> sabPersons) {
         String idpName = idp.getName();
         String spName = sp.getName();
 
@@ -87,16 +168,25 @@ public class SpDashboardController extends BaseController {
                 .userName(serviceConnectionRequest.getOwnName())
                 .emailTo(contactPersons.stream().map(ContactPerson::getEmailAddress).collect(Collectors.joining(", ")))
                 .typeMetaData(serviceConnectionRequest.getTypeMetaData())
-                .idpId(idpEntityId)
-                .spId(spEntityId)
+                .idpId(serviceConnectionRequest.getIdpEntityId())
+                .spId(serviceConnectionRequest.getSpEntityId())
                 .type(Action.Type.LINKINVITE).build();
 
         action = actionsService.create(action);
 
         InviteRequest inviteRequest = new InviteRequest(serviceConnectionRequest, String.valueOf(sp.getEid()), idpName, spName, contactPersons);
         mailbox.sendInviteMail(inviteRequest, action);
+        return action;
+    }
 
-        return ResponseEntity.ok(Collections.singletonMap("jiraKey", action.getJiraKey()));
+    private Map<String, Object> result(ServiceConnectionRequest serviceConnectionRequest, HttpStatus status,
+                                       String key, String value) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("idpEntityId", serviceConnectionRequest.getIdpEntityId());
+        result.put("spEntityId", serviceConnectionRequest.getSpEntityId());
+        result.put("status", status.value());
+        result.put(key, value);
+        return result;
     }
 
     private boolean invalidUser(HttpServletRequest request) {
@@ -20,6 +20,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.mail.MessagingException;
 import java.io.IOException;
@@ -175,8 +176,8 @@ public class UsersController extends BaseController {
         }
         String spEntityId = updateInviteRequest.getSpEntityId();
 
-        List<Service> services = this.services.getServicesForIdp(idpEntityId, true, locale);
-        Optional<Service> optional = services.stream().filter(s -> s.getSpEntityId().equals(spEntityId)).findFirst();
+        Optional<Service> optional = this.services.getServiceForIdp(idpEntityId, spEntityId,
+                EntityType.valueOf(updateInviteRequest.getTypeMetaData()), true, locale);
 
         if (optional.isPresent()) {
             Service service = optional.get();
@@ -245,11 +246,15 @@ public class UsersController extends BaseController {
     }
 
     @RequestMapping(value = "/me/serviceproviders", method = RequestMethod.GET)
-    public RestResponse<List<Service>> serviceProviders(Locale locale) throws IOException {
-        List<Service> usersServices = getServiceProvidersForCurrentUser(locale);
-
+    public RestResponse<List<Service>> serviceProviders(Locale locale, WebRequest webRequest) throws IOException {
         CoinUser currentUser = SpringSecurity.getCurrentUser();
         IdentityProvider idp = currentUser.getSwitchedToIdp().orElse(currentUser.getIdp());
+        String eTag = ETags.forCatalog(manage.getMetadataVersion(), idp != null ? idp.getId() : null, locale, currentUser);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        List<Service> usersServices = getServiceProvidersForCurrentUser(locale);
+
         boolean eraseMails = currentUser.isGuest() || (currentUser.isDashboardMember() && !idp.isDisplayAdminEmailsInDashboard());
         if (eraseMails) {
             usersServices = usersServices.stream().map(service -> ServicesController.eraseMailsFromService(service)).collect(toList());
@@ -15,48 +15,68 @@
  */
 package dashboard.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import dashboard.util.AttributeValueMatcher;
 import org.springframework.util.CollectionUtils;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static java.util.stream.Collectors.toList;
+
 /**
- * Attribute Release Policy
+ * Attribute Release Policy. Immutable, as one ARP is shared by all services built from the same cached provider.
  */
 public class ARP implements Serializable {
 
     private static final long serialVersionUID = 0L;
 
-    private String name;
-    private String description;
-    private Map<String, List<String>> attributes = new LinkedHashMap<>();
-    private boolean noArp;
-    private boolean noAttrArp;
+    private final String name;
+    private final String description;
+    private final Map<String, List<String>> attributes;
+    private final boolean noArp;
+    private final boolean noAttrArp;
+    private transient volatile Map<String, List<AttributeValueMatcher>> attributeMatchers;
 
-    public String getName() {
-        return name;
+    private ARP(String name, String description, Map<String, List<String>> attributes, boolean noArp, boolean noAttrArp) {
+        this.name = name;
+        this.description = description;
+        this.attributes = attributes;
+        this.noArp = noArp;
+        this.noAttrArp = noAttrArp;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public String getName() {
+        return name;
     }
 
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
     public Map<String, List<String>> getAttributes() {
         return attributes;
     }
 
-    public void setAttributes(Map<String, List<String>> attributes) {
-        this.attributes = attributes;
+    /**
+     * The value filters of the attributes, compiled once for this ARP.
+     */
+    @JsonIgnore
+    public Map<String, List<AttributeValueMatcher>> getAttributeMatchers() {
+        Map<String, List<AttributeValueMatcher>> matchers = this.attributeMatchers;
+        if (matchers == null) {
+            matchers = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : attributes.entrySet()) {
+                matchers.put(entry.getKey(), entry.getValue().stream().map(AttributeValueMatcher::compile).collect(toList()));
+            }
+            matchers = Collections.unmodifiableMap(matchers);
+            this.attributeMatchers = matchers;
+        }
+        return matchers;
     }
 
     public boolean isNoArp() {
@@ -67,14 +87,6 @@ public class ARP implements Serializable {
         return noAttrArp;
     }
 
-    public void setNoArp(boolean noArp) {
-        this.noArp = noArp;
-    }
-
-    public void setNoAttrArp(boolean noAttrArp) {
-        this.noAttrArp = noAttrArp;
-    }
-
     @Override
     public String toString() {
         return "ARP{" +
@@ -86,25 +98,20 @@ public class ARP implements Serializable {
                 '}';
     }
 
-    @SuppressWarnings("unchecked")
     public static ARP noArp() {
-        ARP arp = new ARP();
-
-        arp.setNoArp(true);
-        arp.setNoAttrArp(false);
-        return arp;
+        return new ARP(null, null, Collections.emptyMap(), true, false);
     }
 
     public static ARP fromAttributes(Map<String, List<String>> attributes) {
-        ARP arp = new ARP();
-        arp.setName("arp");
-        arp.setDescription("arp");
-        arp.setAttributes(attributes);
-        if (CollectionUtils.isEmpty(attributes)) {
-            arp.setNoAttrArp(true);
+        Map<String, List<String>> copy = null;
+        if (attributes != null) {
+            copy = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : attributes.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            copy = Collections.unmodifiableMap(copy);
         }
-        return arp;
+        return new ARP("arp", "arp", copy, false, CollectionUtils.isEmpty(attributes));
     }
 
-
 }
@@ -21,10 +21,13 @@ import lombok.ToString;
 import org.apache.commons.lang3.builder.CompareToBuilder;
 
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
+/**
+ * Immutable, as the actions of a Jira search are cached and shared by all requests. Changes are made on a copy, see
+ * {@link #unbuild()}.
+ */
 @Getter
 @EqualsAndHashCode
 @ToString
@@ -93,7 +96,7 @@ public class Action {
         this.rejected = builder.rejected;
         this.loaLevel = builder.loaLevel;
         this.mfaLevel = builder.mfaLevel;
-        this.manageUrls = builder.manageUrls;
+        this.manageUrls = builder.manageUrls == null ? null : List.copyOf(builder.manageUrls);
     }
 
     /**
@@ -109,13 +112,6 @@ public class Action {
         return new Builder(this);
     }
 
-    public void addManageUrl(String manageUrl) {
-        if (this.manageUrls == null) {
-            manageUrls = new ArrayList<>();
-        }
-        manageUrls.add(manageUrl);
-    }
-
     public static Builder builder() {
         return new Builder();
     }
@@ -26,6 +26,7 @@ public class CategoryValue implements Comparable<CategoryValue>, Serializable {
     private static final long serialVersionUID = 0L;
 
     private int count;
+    private int connectedCount;
     private String value;
 
     public CategoryValue(String value) {
@@ -40,6 +41,14 @@ public class CategoryValue implements Comparable<CategoryValue>, Serializable {
         return count;
     }
 
+    public int getConnectedCount() {
+        return connectedCount;
+    }
+
+    public void setConnectedCount(int connectedCount) {
+        this.connectedCount = connectedCount;
+    }
+
     public String getValue() {
         return value;
     }
@@ -54,6 +63,6 @@ public class CategoryValue implements Comparable<CategoryValue>, Serializable {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(CategoryValue.class)
-                .add("value", value).add("count", count).toString();
+                .add("value", value).add("count", count).add("connectedCount", connectedCount).toString();
     }
 }
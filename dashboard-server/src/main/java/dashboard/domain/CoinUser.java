@@ -26,10 +26,16 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static dashboard.domain.CoinAuthority.Authority.*;
 
+/**
+ * The principal kept in the session. Only the entity ids of the identity providers are serialized, a principal that
+ * is restored from (another node's) session store resolves its providers on first access with the resolver handed to
+ * {@link #restoreIdentityProviders(Function)} when the security context is loaded.
+ */
 @SuppressWarnings("serial")
 @ToString
 public class CoinUser implements UserDetails {
@@ -40,10 +46,18 @@ public class CoinUser implements UserDetails {
     private String surName;
     private String schacHomeOrganization;
 
-    private IdentityProvider currentIdp;
-    private IdentityProvider switchedToIdp;
+    private transient IdentityProvider currentIdp;
+    private transient IdentityProvider switchedToIdp;
+    private transient List<IdentityProvider> institutionIdps = new ArrayList<>();
+    @ToString.Exclude
+    private transient Function<String, Optional<IdentityProvider>> identityProviderResolver;
+    @JsonIgnore
+    private String currentIdpId;
+    @JsonIgnore
+    private String switchedToIdpId;
+    @JsonIgnore
+    private List<String> institutionIdpIds = new ArrayList<>();
     private int currentLoaLevel;
-    private List<IdentityProvider> institutionIdps = new ArrayList<>();
     private String institutionId;
     private String email;
     private boolean manageConsentEnabled;
@@ -214,11 +228,25 @@ public class CoinUser implements UserDetails {
      * @return List of {@link InstitutionIdentityProvider}'s
      */
     public List<IdentityProvider> getInstitutionIdps() {
-        return institutionIdps;
+        if (institutionIdps != null) {
+            return Collections.unmodifiableList(institutionIdps);
+        }
+        List<IdentityProvider> resolved = institutionIdpIds.stream()
+                .map(this::resolve)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        // providers that could not be resolved are retried on the next access instead of being dropped for the session
+        if (resolved.size() == institutionIdpIds.size()) {
+            institutionIdps = resolved;
+        }
+        return Collections.unmodifiableList(resolved);
     }
 
     public void addInstitutionIdp(IdentityProvider idp) {
-        this.institutionIdps.add(idp);
+        if (this.institutionIdps != null) {
+            this.institutionIdps.add(idp);
+        }
+        this.institutionIdpIds.add(idp.getId());
     }
 
     /**
@@ -242,19 +270,64 @@ public class CoinUser implements UserDetails {
      * @return Identifier of the IdentityProvider the user has logged in with
      */
     public IdentityProvider getIdp() {
+        if (currentIdp == null && currentIdpId != null) {
+            currentIdp = resolve(currentIdpId);
+        }
         return currentIdp;
     }
 
     public void setIdp(IdentityProvider idp) {
         this.currentIdp = idp;
+        this.currentIdpId = idp != null ? idp.getId() : null;
     }
 
     public Optional<IdentityProvider> getSwitchedToIdp() {
+        if (switchedToIdp == null && switchedToIdpId != null) {
+            switchedToIdp = resolve(switchedToIdpId);
+        }
         return Optional.ofNullable(switchedToIdp);
     }
 
     public void setSwitchedToIdp(IdentityProvider switchedToIdp) {
         this.switchedToIdp = switchedToIdp;
+        this.switchedToIdpId = switchedToIdp != null ? switchedToIdp.getId() : null;
+    }
+
+    /**
+     * Replaces the identity providers with copies without contact persons if this is a member that is not allowed to
+     * see the admin emails. Called once the authorities of a new user are known.
+     */
+    public void hideAdminEmailsFromMember() {
+        setIdp(withoutHiddenContactPersons(getIdp()));
+        if (institutionIdps != null) {
+            institutionIdps = institutionIdps.stream()
+                    .map(this::withoutHiddenContactPersons)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Hands the resolver of this node to a principal that is loaded from the session store. The identity providers
+     * are resolved on first access.
+     */
+    public void restoreIdentityProviders(Function<String, Optional<IdentityProvider>> identityProviderResolver) {
+        this.identityProviderResolver = identityProviderResolver;
+    }
+
+    private IdentityProvider resolve(String entityId) {
+        if (identityProviderResolver == null) {
+            return null;
+        }
+        return identityProviderResolver.apply(entityId)
+                .map(this::withoutHiddenContactPersons)
+                .orElse(null);
+    }
+
+    private IdentityProvider withoutHiddenContactPersons(IdentityProvider idp) {
+        if (idp != null && isDashboardMember() && !idp.isDisplayAdminEmailsInDashboard()) {
+            return idp.withoutContactPersons();
+        }
+        return idp;
     }
 
     /**
@@ -359,7 +432,7 @@ public class CoinUser implements UserDetails {
     }
 
     public IdentityProvider getCurrentIdp() {
-        return currentIdp;
+        return getIdp();
     }
 
     public int getCurrentLoaLevel() {
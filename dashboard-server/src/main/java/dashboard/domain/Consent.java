@@ -1,6 +1,10 @@
 package dashboard.domain;
 
-public class Consent {
+import java.io.Serializable;
+
+public class Consent implements Serializable {
+
+    private static final long serialVersionUID = 0L;
 
     private String spEntityId;
     private ConsentType type;
@@ -0,0 +1,86 @@
+package dashboard.domain;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of entity ids stored as the sorted {@link EntityIdSymbols symbols} of the entity ids. The symbols are
+ * only valid within one JVM, so the set is serialized as its entity ids.
+ */
+final class EntityIdSet extends AbstractSet<String> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final EntityIdSet EMPTY = new EntityIdSet(new int[0]);
+
+    private final int[] symbols;
+
+    private EntityIdSet(int[] symbols) {
+        this.symbols = symbols;
+    }
+
+    static EntityIdSet of(Collection<String> entityIds) {
+        if (entityIds instanceof EntityIdSet) {
+            return (EntityIdSet) entityIds;
+        }
+        int[] symbols = entityIds.stream().mapToInt(EntityIdSymbols::symbol).sorted().distinct().toArray();
+        return symbols.length == 0 ? EMPTY : new EntityIdSet(symbols);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int symbol = EntityIdSymbols.existingSymbol((String) o);
+        return symbol != EntityIdSymbols.UNKNOWN && Arrays.binarySearch(symbols, symbol) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < symbols.length;
+            }
+
+            @Override
+            public String next() {
+                if (index >= symbols.length) {
+                    throw new NoSuchElementException();
+                }
+                return EntityIdSymbols.entityId(symbols[index++]);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return symbols.length;
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(toArray(new String[0]));
+    }
+
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] entityIds;
+
+        private SerializedForm(String[] entityIds) {
+            this.entityIds = entityIds;
+        }
+
+        private Object readResolve() {
+            return EntityIdSet.of(Arrays.asList(entityIds));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dashboard.domain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Federation wide symbol table of entity ids. Every entity id gets an int symbol that is stable for the lifetime of
+ * the JVM, so the allowed entities of all providers can be stored as int arrays instead of sets of (duplicated)
+ * Strings. The number of entity ids in a federation is bounded, symbols are never released.
+ */
+final class EntityIdSymbols {
+
+    static final int UNKNOWN = -1;
+
+    private static final Map<String, Integer> symbols = new ConcurrentHashMap<>();
+    private static volatile String[] entityIds = new String[1024];
+    private static int size;
+
+    private EntityIdSymbols() {
+    }
+
+    static int symbol(String entityId) {
+        Integer symbol = symbols.get(entityId);
+        return symbol != null ? symbol : register(entityId);
+    }
+
+    /**
+     * @return the symbol of the entity id or {@link #UNKNOWN} without registering it
+     */
+    static int existingSymbol(String entityId) {
+        Integer symbol = symbols.get(entityId);
+        return symbol != null ? symbol : UNKNOWN;
+    }
+
+    static String entityId(int symbol) {
+        return entityIds[symbol];
+    }
+
+    static int size() {
+        return symbols.size();
+    }
+
+    private static synchronized int register(String entityId) {
+        Integer symbol = symbols.get(entityId);
+        if (symbol != null) {
+            return symbol;
+        }
+        if (size == entityIds.length) {
+            entityIds = Arrays.copyOf(entityIds, size * 2);
+        }
+        entityIds[size] = entityId;
+        // publishing the symbol after the entity id makes the entity id visible to everyone that sees the symbol
+        symbols.put(entityId, size);
+        return size++;
+    }
+}
@@ -20,20 +20,23 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 @SuppressWarnings({"serial", "unchecked"})
 public class IdentityProvider extends Provider implements Serializable {
 
     private String institutionId;
-    private Map<String, String> keywords = new HashMap<>();
+    private LocalizedStrings keywords = new LocalizedStrings();
     private List<Consent> disableConsent;
     private boolean connectToRSServicesAutomatically;
-    private Map<String, String> organisationNames = new HashMap<>();
-    private Map<String, String> organisationDisplayNames = new HashMap<>();
+    private LocalizedStrings organisationNames = new LocalizedStrings();
+    private LocalizedStrings organisationDisplayNames = new LocalizedStrings();
     private boolean allowMaintainersToManageAuthzRules;
     private boolean displayAdminEmailsInDashboard;
     private boolean displayStatsInDashboard;
@@ -65,10 +68,10 @@ public class IdentityProvider extends Provider implements Serializable {
                 connectToRSServicesAutomatically = true;
             }
         });
-        organisationNames.put("en", (String) metaData.get("OrganizationName:en"));
-        organisationNames.put("nl", (String) metaData.get("OrganizationName:nl"));
-        organisationDisplayNames.put("en", (String) metaData.get("OrganizationDisplayName:en"));
-        organisationDisplayNames.put("nl", (String) metaData.get("OrganizationDisplayName:nl"));
+        organisationNames.set("en", (String) metaData.get("OrganizationName:en"));
+        organisationNames.set("nl", (String) metaData.get("OrganizationName:nl"));
+        organisationDisplayNames.set("en", (String) metaData.get("OrganizationDisplayName:en"));
+        organisationDisplayNames.set("nl", (String) metaData.get("OrganizationDisplayName:nl"));
         allowMaintainersToManageAuthzRules = booleanValue(metaData.get("coin:allow_maintainers_to_manage_authz_rules"));
         displayAdminEmailsInDashboard = booleanValue(metaData.get("coin:display_admin_emails_in_dashboard"));
         displayStatsInDashboard = booleanValue(metaData.get("coin:display_stats_in_dashboard"));
@@ -91,12 +94,12 @@ public class IdentityProvider extends Provider implements Serializable {
 
     private void addKeywords(String language, String keywords) {
         if (keywords != null) {
-            this.keywords.put(language, keywords);
+            this.keywords.set(language, keywords);
         }
     }
 
     public List<Consent> getDisableConsent() {
-        return disableConsent;
+        return disableConsent == null ? null : Collections.unmodifiableList(disableConsent);
     }
 
     public boolean isConnectToRSServicesAutomatically() {
@@ -112,11 +115,27 @@ public class IdentityProvider extends Provider implements Serializable {
     }
 
     public List<Map<String, String>> getStepupEntities() {
-        return stepupEntities;
+        return stepupEntities == null ? null : Collections.unmodifiableList(stepupEntities);
     }
 
     public List<Map<String, String>> getMfaEntities() {
-        return mfaEntities;
+        return mfaEntities == null ? null : Collections.unmodifiableList(mfaEntities);
+    }
+
+    /**
+     * @return a copy of this IdentityProvider without contact persons, for users that may not see the admin emails
+     */
+    public IdentityProvider withoutContactPersons() {
+        return (IdentityProvider) copyWithContactPersons(Collections.emptyList());
+    }
+
+    /**
+     * @return a copy of this IdentityProvider that is also allowed to connect to the given Service Provider
+     */
+    public IdentityProvider withAllowedEntityId(String spEntityId) {
+        Set<String> allowedEntityIds = getAllowedEntityIds() == null ? new HashSet<>() : new HashSet<>(getAllowedEntityIds());
+        allowedEntityIds.add(spEntityId);
+        return (IdentityProvider) copyWithAllowedEntityIds(allowedEntityIds);
     }
 
     @Override
@@ -0,0 +1,113 @@
+package dashboard.domain;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map of a value per language ("en", "nl", "pt") stored as an array indexed by {@link Provider.Language}.
+ * The values are only set while constructing a provider, null values and values of other languages are not stored.
+ * Serialized to json like any other map.
+ */
+final class LocalizedStrings extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] KEYS = Arrays.stream(Provider.Language.values())
+            .map(language -> language.name().toLowerCase())
+            .toArray(String[]::new);
+
+    private final String[] values = new String[KEYS.length];
+    private int size;
+
+    void set(String language, String value) {
+        int index = index(language);
+        if (index < 0) {
+            // Manage may contain languages the dashboard does not support
+            return;
+        }
+        if (values[index] != null) {
+            size--;
+        }
+        if (value != null) {
+            size++;
+        }
+        values[index] = value;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = index(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int index = nextIndex(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (index >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(KEYS[index], values[index]);
+                        index = nextIndex(index + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int nextIndex(int from) {
+        int index = from;
+        while (index < values.length && values[index] == null) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int index(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        switch ((String) key) {
+            case "en":
+                return Provider.Language.EN.ordinal();
+            case "nl":
+                return Provider.Language.NL.ordinal();
+            case "pt":
+                return Provider.Language.PT.ordinal();
+            default:
+                return -1;
+        }
+    }
+}
@@ -27,12 +27,19 @@ import java.util.stream.IntStream;
 
 /**
  * Abstract class for either ServiceProvider or IdentityProvider
+ * <p>
+ * Providers are shared by the Manage caches and all sessions, so the collections are never changed after
+ * construction and only exposed as unmodifiable views. Changes are made on a copy, see {@link #copy()}.
+ * <p>
+ * The values per language are stored as {@link LocalizedStrings} and the allowed entities as the symbols of the
+ * entity ids in an {@link EntityIdSet}, as there are thousands of providers with mostly a handful of values.
  */
 @SuppressWarnings("serial")
-public abstract class Provider implements Comparable<Provider>, Serializable {
+public abstract class Provider implements Comparable<Provider>, Serializable, Cloneable {
 
     private String id;
     private String internalId;
+    private Long revision;
     private Long eid;
     private String state;
     private EntityType entityType;
@@ -45,18 +52,18 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
     private String logoUrl;
     private String publishInEdugainDate;
 
-    private Map<String, String> names = new HashMap<>();
-    private Map<String, String> organisations = new HashMap<>();
-    private Map<String, String> homeUrls = new HashMap<>();
-    private Map<String, String> descriptions = new HashMap<>();
-    private Map<String, String> displayNames = new HashMap<>();
+    private LocalizedStrings names = new LocalizedStrings();
+    private LocalizedStrings organisations = new LocalizedStrings();
+    private LocalizedStrings homeUrls = new LocalizedStrings();
+    private LocalizedStrings descriptions = new LocalizedStrings();
+    private LocalizedStrings displayNames = new LocalizedStrings();
 
     private boolean linked;
 
     private List<ContactPerson> contactPersons = new ArrayList<>();
 
     private boolean allowedAll;
-    private Set<String> allowedEntityIds;
+    private EntityIdSet allowedEntityIds;
     private boolean noConsentRequired;
     private boolean publishedInEdugain;
 
@@ -64,7 +71,14 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
     }
 
     public Provider(Map<String, Object> metaData) {
+        this(metaData, null);
+    }
+
+    public Provider(Map<String, Object> metaData, EntityType entityType) {
+        this.entityType = entityType;
         this.internalId = (String) metaData.get("internalId");
+        Object revision = metaData.get("revision");
+        this.revision = revision instanceof Number ? ((Number) revision).longValue() : null;
         this.id = (String) metaData.get("entityid");
         this.eid = ((Number) metaData.get("eid")).longValue();
         this.state = (String) metaData.get("state");
@@ -109,9 +123,9 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
 
     private void addOrganisation(String language, String organisationName, String organisationNameFallback) {
         if (organisationName != null) {
-            this.organisations.put(language, organisationName);
+            this.organisations.set(language, organisationName);
         } else if (organisationNameFallback != null) {
-            this.organisations.put(language, organisationNameFallback);
+            this.organisations.set(language, organisationNameFallback);
         }
     }
 
@@ -127,10 +141,6 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
         return linked;
     }
 
-    public void setLinked(boolean linked) {
-        this.linked = linked;
-    }
-
     public String getName() {
         return name;
     }
@@ -145,7 +155,7 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
 
     private void addHomeUrl(String language, String homeUrl) {
         if (homeUrl != null) {
-            this.homeUrls.put(language, homeUrl);
+            this.homeUrls.set(language, homeUrl);
         }
     }
 
@@ -154,7 +164,7 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
     }
 
     public List<ContactPerson> getContactPersons() {
-        return contactPersons;
+        return Collections.unmodifiableList(contactPersons);
     }
 
     public ContactPerson getContactPerson(ContactPersonType type) {
@@ -166,7 +176,7 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
                 .findFirst().orElse(null);
     }
 
-    public void addContactPerson(ContactPerson contactPerson) {
+    private void addContactPerson(ContactPerson contactPerson) {
         this.contactPersons.add(contactPerson);
     }
 
@@ -203,7 +213,7 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
 
     protected void addName(String language, String name) {
         if (name != null) {
-            this.names.put(language, name);
+            this.names.set(language, name);
         }
     }
 
@@ -235,26 +245,22 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
         return eid;
     }
 
-    public void setEid(Long eid) {
+    protected void setEid(Long eid) {
         this.eid = eid;
     }
 
     private void addDescription(String language, String description) {
-        this.descriptions.put(language, description);
+        this.descriptions.set(language, description);
     }
 
     private void addDisplayName(String language, String displayName) {
-        this.displayNames.put(language, displayName);
+        this.displayNames.set(language, displayName);
     }
 
     public boolean isNoConsentRequired() {
         return noConsentRequired;
     }
 
-    public void setNoConsentRequired(boolean noConsentRequired) {
-        this.noConsentRequired = noConsentRequired;
-    }
-
     public boolean isAllowedAll() {
         return allowedAll;
     }
@@ -263,10 +269,6 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
         return allowedEntityIds;
     }
 
-    public void addAllowedEntityId(String spId) {
-        allowedEntityIds.add(spId);
-    }
-
     public String getPublishInEdugainDate() {
         return publishInEdugainDate;
     }
@@ -279,23 +281,52 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
         return state;
     }
 
-    public void setState(String state) {
-        this.state = state;
-    }
-
-    public void setEntityType(EntityType entityType) {
-        this.entityType = entityType;
-    }
-
     public String getInternalId() {
         return internalId;
     }
 
+    /**
+     * @return the version of the metadata document in Manage, null when unknown
+     */
+    public Long getRevision() {
+        return revision;
+    }
+
     public EntityType getEntityType() {
         return entityType;
     }
 
 
+    /**
+     * Shallow copy for the copy-on-write methods of the subclasses. As the collections are never changed the copy
+     * shares them, a copy-on-write method only replaces the collection it changes.
+     */
+    protected Provider copy() {
+        try {
+            return (Provider) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected Provider copyWithContactPersons(List<ContactPerson> contactPersons) {
+        Provider copy = copy();
+        copy.contactPersons = new ArrayList<>(contactPersons);
+        return copy;
+    }
+
+    protected Provider copyWithEid(Long eid) {
+        Provider copy = copy();
+        copy.eid = eid;
+        return copy;
+    }
+
+    protected Provider copyWithAllowedEntityIds(Set<String> allowedEntityIds) {
+        Provider copy = copy();
+        copy.allowedEntityIds = EntityIdSet.of(allowedEntityIds);
+        return copy;
+    }
+
     protected boolean booleanValue(Object metadataValue) {
         return metadataValue != null && (metadataValue.equals("1") || (metadataValue instanceof Boolean && (boolean) metadataValue));
     }
@@ -316,15 +347,15 @@ public abstract class Provider implements Comparable<Provider>, Serializable {
         }
     }
 
-    private Set<String> getAllowedEntries(Map<String, Object> entry) {
+    private EntityIdSet getAllowedEntries(Map<String, Object> entry) {
         @SuppressWarnings("unchecked")
         List<String> allowedEntities = (List<String>) entry.getOrDefault("allowedEntities", Collections.emptyList());
-        return new HashSet<>(allowedEntities);
+        return EntityIdSet.of(allowedEntities);
     }
 
     private boolean getAllowedAll(Map<String, Object> entry) {
-        String allowedall = (String) entry.getOrDefault("allowedall", "yes");
-        return allowedall.equals("yes");
+        Object allowedall = entry.getOrDefault("allowedall", Boolean.TRUE);
+        return Boolean.TRUE.equals(allowedall) || "yes".equals(allowedall);
     }
 
     @Override
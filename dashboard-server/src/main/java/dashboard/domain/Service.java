@@ -15,6 +15,7 @@
  */
 package dashboard.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.google.common.base.MoreObjects;
@@ -101,6 +102,8 @@ public class Service implements Comparable<Service>, Serializable {
     private boolean isResourceServer;
     private DashboardConnectOption dashboardConnectOption;
 
+    private transient String fragmentKey;
+
     public Service() {
     }
 
@@ -524,6 +527,20 @@ public class Service implements Comparable<Service>, Serializable {
         this.contractualBase = contractualBase;
     }
 
+    /**
+     * Identifies the user independent JSON of this service: two services with the same key serialize to the same
+     * JSON (apart from the filtered user attributes). Only services built straight from the metadata have a key,
+     * anyone changing a keyed service must either change or clear the key.
+     */
+    @JsonIgnore
+    public String getFragmentKey() {
+        return fragmentKey;
+    }
+
+    public void setFragmentKey(String fragmentKey) {
+        this.fragmentKey = fragmentKey;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -27,7 +27,7 @@ import java.util.stream.Collectors;
 import static java.util.stream.Collectors.toMap;
 
 
-public class ServiceProvider extends Provider implements Serializable, Cloneable {
+public class ServiceProvider extends Provider implements Serializable {
 
     private static final List<String> nameIdFormats = Arrays.asList("NameIDFormat", "NameIDFormats:0", "NameIDFormats:1", "NameIDFormats:2");
 
@@ -61,7 +61,7 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
     private ARP arp;
     private PrivacyInfo privacyInfo;
 
-    private Map<String, String> urls = new HashMap<>();
+    private LocalizedStrings urls = new LocalizedStrings();
     private String wikiUrlNl;
     private String wikiUrlEn;
     private String wikiUrlPt;
@@ -76,9 +76,13 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
     private boolean manipulation;
     private String contractualBase;
 
-    @SuppressWarnings("unchecked")
     public ServiceProvider(Map<String, Object> metaData) {
-        super(metaData);
+        this(metaData, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ServiceProvider(Map<String, Object> metaData, EntityType entityType) {
+        super(metaData, entityType);
         this.dashboardConnectOption = DashboardConnectOption.fromOption((String) metaData.getOrDefault("coin:dashboard_connect_option", "connect_with_interaction"));
         this.applicationUrl = (String) metaData.get("coin:application_url");
         this.institutionId = (String) metaData.get("coin:institution_id");
@@ -242,16 +246,16 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
     }
 
     public Map<String, String> getArpMotivations() {
-        return arpMotivations;
+        return arpMotivations == null ? null : Collections.unmodifiableMap(arpMotivations);
     }
 
     public Map<String, String> getArpSources() {
-        return arpSources;
+        return arpSources == null ? null : Collections.unmodifiableMap(arpSources);
     }
 
     private void addUrl(String lang, String url) {
         if (StringUtils.hasText(url)) {
-            this.urls.put(lang, url);
+            this.urls.set(lang, url);
         }
     }
 
@@ -279,6 +283,14 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
         return entityCategories3;
     }
 
+    /**
+     * @return a copy of this ServiceProvider with another eid, used to keep the eids of the example single tenant
+     * templates apart from the eids of the service providers
+     */
+    public ServiceProvider withEid(Long eid) {
+        return (ServiceProvider) copyWithEid(eid);
+    }
+
     @Override
     public String toString() {
         return "ServiceProvider{" +
@@ -294,14 +306,6 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
                 '}';
     }
 
-    public ServiceProvider clone() {
-        try {
-            return (ServiceProvider) super.clone();
-        } catch (CloneNotSupportedException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     public LicenseStatus getLicenseStatus() {
         return licenseStatus;
     }
@@ -327,15 +331,15 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
     }
 
     public List<String> getTypeOfServicesNl() {
-        return typeOfServicesNl;
+        return Collections.unmodifiableList(typeOfServicesNl);
     }
 
     public List<String> getTypeOfServicesEn() {
-        return typeOfServicesEn;
+        return Collections.unmodifiableList(typeOfServicesEn);
     }
 
     public List<String> getTypeOfServicesPt() {
-        return typeOfServicesPt;
+        return Collections.unmodifiableList(typeOfServicesPt);
     }
 
     public boolean isAansluitovereenkomstRefused() {
@@ -355,11 +359,7 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
     }
 
     public List<String> getNameIds() {
-        return nameIds;
-    }
-
-    public void setDashboardConnectOption(DashboardConnectOption dashboardConnectOption) {
-        this.dashboardConnectOption = dashboardConnectOption;
+        return nameIds == null ? null : Collections.unmodifiableList(nameIds);
     }
 
     public DashboardConnectOption getDashboardConnectOption() {
@@ -367,7 +367,7 @@ public class ServiceProvider extends Provider implements Serializable, Cloneable
     }
 
     public List<String> getResourceServers() {
-        return resourceServers;
+        return resourceServers == null ? null : Collections.unmodifiableList(resourceServers);
     }
 
     public boolean isResourceServer() {
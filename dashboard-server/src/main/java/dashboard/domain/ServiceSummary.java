@@ -0,0 +1,63 @@
+package dashboard.domain;
+
+import dashboard.manage.EntityType;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The part of a {@link Service} the service lists need for rendering, searching and faceting. The full Service is
+ * only returned by the detail endpoint.
+ */
+@Getter
+public class ServiceSummary {
+
+    private final long id;
+    private final String spEntityId;
+    private final EntityType entityType;
+    private final String state;
+    private final String name;
+    private final String organisation;
+    private final Map<String, String> names;
+    private final Map<String, String> descriptions;
+    private final String institutionId;
+    private final String interfedSource;
+    private final String entityCategories1;
+    private final String entityCategories2;
+    private final String entityCategories3;
+    private final String minimalLoaLevel;
+    private final String manipulationNotes;
+    private final boolean manipulation;
+    private final boolean connected;
+    private final boolean idpVisibleOnly;
+    private final boolean exampleSingleTenant;
+    private final List<Category> categories;
+    private final ARP arp;
+    private final transient String fragmentKey;
+
+    public ServiceSummary(Service service) {
+        this.id = service.getId();
+        this.spEntityId = service.getSpEntityId();
+        this.entityType = service.getEntityType();
+        this.state = service.getState();
+        this.name = service.getName();
+        this.organisation = service.getOrganisation();
+        this.names = service.getNames();
+        this.descriptions = service.getDescriptions();
+        this.institutionId = service.getInstitutionId();
+        this.interfedSource = service.getInterfedSource();
+        this.entityCategories1 = service.getEntityCategories1();
+        this.entityCategories2 = service.getEntityCategories2();
+        this.entityCategories3 = service.getEntityCategories3();
+        this.minimalLoaLevel = service.getMinimalLoaLevel();
+        this.manipulationNotes = service.getManipulationNotes();
+        this.manipulation = service.isManipulation();
+        this.connected = service.isConnected();
+        this.idpVisibleOnly = service.isIdpVisibleOnly();
+        this.exampleSingleTenant = service.isExampleSingleTenant();
+        this.categories = service.getCategories();
+        this.arp = service.getArp();
+        this.fragmentKey = service.getFragmentKey();
+    }
+}
@@ -0,0 +1,16 @@
+package dashboard.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ServicesDownloadRequest {
+
+    private String idp;
+    private List<Long> ids;
+    private List<String> columns;
+
+}
@@ -0,0 +1,280 @@
+package dashboard.filter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * The catalog responses are large and carry an ETag that changes with everything the body is built from. For
+ * clients accepting gzip the gzipped body is cached by the request URI and that ETag, which is known before the
+ * first byte of the body is written. On a hit the body the controller writes is discarded and the cached one is
+ * sent, only on a miss the body is buffered and compressed. The least recently used bodies are evicted when the
+ * configured byte budget is exceeded.
+ */
+public class CompressedResponseFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final Cache<String, byte[]> compressedBodies;
+    private final int minimumSize;
+    private final Counter bytesSaved;
+
+    public CompressedResponseFilter(long maximumCacheBytes, int minimumSize, MeterRegistry meterRegistry) {
+        this.compressedBodies = CacheBuilder.newBuilder()
+                .maximumWeight(maximumCacheBytes)
+                .<String, byte[]>weigher((key, body) -> body.length)
+                .recordStats()
+                .build();
+        this.minimumSize = minimumSize;
+        this.bytesSaved = Counter.builder("dashboard.compressed.responses.bytes.saved")
+                .description("Bytes saved by sending gzipped instead of plain catalog responses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.compressed.responses.hit.ratio", compressedBodies, cache -> cache.stats().hitRate())
+                .description("Ratio of compressed bodies served from the cache")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.compressed.responses.cache.size", compressedBodies, Cache::size)
+                .description("Number of cached compressed bodies")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /*
+     * An explicit gzip coding wins over the wildcard, a q-value of 0 means "not acceptable"
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = quality(parameters) > 0;
+            if (name.equals(GZIP) || name.equals("x-gzip")) {
+                return acceptable;
+            }
+            if (name.equals("*")) {
+                wildcard = acceptable;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, request.getRequestURI());
+        chain.doFilter(request, wrapper);
+        wrapper.finish();
+    }
+
+    long cacheSize() {
+        return compressedBodies.size();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private enum Mode {
+        UNDECIDED, PLAIN, CACHED, COMPRESS
+    }
+
+    /*
+     * Decides what to do with the body when the controller starts writing it, the status and ETag are set by then
+     */
+    private final class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final HttpServletResponse response;
+        private final String requestUri;
+        private Mode mode = Mode.UNDECIDED;
+        private String key;
+        private byte[] compressed;
+        private ByteArrayOutputStream body;
+        private BodyOutputStream bodyOutputStream;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private Long contentLength;
+
+        private CompressingResponseWrapper(HttpServletResponse response, String requestUri) {
+            super(response);
+            this.response = response;
+            this.requestUri = requestUri;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                decide();
+                if (mode == Mode.PLAIN) {
+                    outputStream = response.getOutputStream();
+                } else {
+                    bodyOutputStream = new BodyOutputStream(mode == Mode.COMPRESS ? body : OutputStream.nullOutputStream());
+                    outputStream = bodyOutputStream;
+                }
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (mode == Mode.PLAIN) {
+                response.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (mode == Mode.PLAIN) {
+                response.flushBuffer();
+            }
+        }
+
+        private void decide() {
+            String eTag = response.getHeader(HttpHeaders.ETAG);
+            if (eTag == null || response.getStatus() != HttpStatus.OK.value() ||
+                    response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+                mode = Mode.PLAIN;
+                if (contentLength != null) {
+                    response.setContentLengthLong(contentLength);
+                }
+                return;
+            }
+            key = requestUri + "|" + eTag;
+            compressed = compressedBodies.getIfPresent(key);
+            if (compressed != null) {
+                mode = Mode.CACHED;
+            } else {
+                mode = Mode.COMPRESS;
+                body = new ByteArrayOutputStream(contentLength != null ? contentLength.intValue() : 64 * 1024);
+            }
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            switch (mode) {
+                case UNDECIDED:
+                    if (contentLength != null) {
+                        response.setContentLengthLong(contentLength);
+                    }
+                    return;
+                case PLAIN:
+                    return;
+                case COMPRESS:
+                    byte[] plain = body.toByteArray();
+                    if (plain.length < minimumSize) {
+                        response.setContentLength(plain.length);
+                        response.getOutputStream().write(plain);
+                        return;
+                    }
+                    compressed = gzip(plain);
+                    compressedBodies.put(key, compressed);
+                    bytesSaved.increment(plain.length - compressed.length);
+                    break;
+                default:
+                    bytesSaved.increment(bodyOutputStream.count - compressed.length);
+            }
+            // a strong ETag would claim byte equality with the plain body, the ETag checks use weak comparison
+            String eTag = response.getHeader(HttpHeaders.ETAG);
+            if (!eTag.startsWith("W/")) {
+                response.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            response.setContentLength(compressed.length);
+            response.getOutputStream().write(compressed);
+        }
+    }
+
+    private static final class BodyOutputStream extends ServletOutputStream {
+
+        private final OutputStream out;
+        private long count;
+
+        private BodyOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package dashboard.filter;
 
+import dashboard.domain.CoinUser;
 import dashboard.domain.IdentityProvider;
-import dashboard.manage.Manage;
+import dashboard.manage.IdentityProviderCache;
 import dashboard.util.SpringSecurity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
@@ -16,12 +17,17 @@ import java.util.Optional;
 
 import static dashboard.control.Constants.HTTP_X_IDP_ENTITY_ID;
 
+/*
+ * The IdPs of the institution of a user are part of the authenticated principal, so for regular users the check never
+ * needs Manage. Super users may access any existing IdP, which is looked up in the per node IdP cache so Manage is
+ * only asked when an IdP is not known yet.
+ */
 public class EnsureAccessToIdpFilter extends GenericFilterBean {
 
-    private final Manage manage;
+    private final IdentityProviderCache identityProviderCache;
 
-    public EnsureAccessToIdpFilter(Manage manage) {
-        this.manage = manage;
+    public EnsureAccessToIdpFilter(IdentityProviderCache identityProviderCache) {
+        this.identityProviderCache = identityProviderCache;
     }
 
     @Override
@@ -31,13 +37,28 @@ public class EnsureAccessToIdpFilter extends GenericFilterBean {
         if (shouldAccessToIdpBeChecked(req)) {
             String idpEntityId = Optional.ofNullable(req.getHeader(HTTP_X_IDP_ENTITY_ID)).orElse(request.getParameter("idpEntityId"));
             if (StringUtils.hasText(idpEntityId)) {
-                IdentityProvider idp = manage.getIdentityProvider(idpEntityId, false).orElseThrow(() -> new SecurityException(idpEntityId + " does not exist"));
-                SpringSecurity.ensureAccess(idp);
+                ensureAccess(SpringSecurity.getCurrentUser(), idpEntityId);
             }
         }
         chain.doFilter(request, response);
     }
 
+    private void ensureAccess(CoinUser currentUser, String idpEntityId) {
+        if (currentUser.getByEntityId(idpEntityId).isPresent()) {
+            return;
+        }
+        if (!currentUser.isSuperUser()) {
+            throw new SecurityException(idpEntityId + " is unknown for " + currentUser.getUsername());
+        }
+        Optional<IdentityProvider> switchedToIdp = currentUser.getSwitchedToIdp()
+                .filter(idp -> idp.getId().equals(idpEntityId));
+        if (switchedToIdp.isPresent()) {
+            return;
+        }
+        IdentityProvider idp = identityProviderCache.getIdentityProvider(idpEntityId).orElseThrow(() -> new SecurityException(idpEntityId + " does not exist"));
+        SpringSecurity.ensureAccess(idp);
+    }
+
     private boolean shouldAccessToIdpBeChecked(HttpServletRequest req) {
         String requestURI = req.getRequestURI();
         if (SpringSecurity.getCurrentUser().isGuest()) {
@@ -9,7 +9,9 @@ import org.springframework.core.io.Resource;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static dashboard.util.StreamUtils.filterEmpty;
 import static java.util.stream.Collectors.toList;
@@ -22,6 +24,7 @@ public class ClassPathResourceManage implements Manage {
     private volatile Map<String, IdentityProvider> identityProviderMap = new HashMap<>();
     private volatile Map<String, ServiceProvider> serviceProviderMap = new HashMap<>();
     private volatile Map<String, ServiceProvider> exampleSingleTenants = new HashMap<>();
+    private final AtomicLong metadataVersion = new AtomicLong();
 
     public ClassPathResourceManage() {
         initializeMetadata();
@@ -102,6 +105,14 @@ public class ClassPathResourceManage implements Manage {
                 exampleSingleTenants.values().stream().filter(sp -> sp.getEid().equals(spId)).findFirst();
     }
 
+    @Override
+    public List<ServiceProvider> getServiceProvidersByIds(Collection<Long> spIds) {
+        Set<Long> ids = new HashSet<>(spIds);
+        return Stream.concat(serviceProviderMap.values().stream(), exampleSingleTenants.values().stream())
+                .filter(sp -> ids.contains(sp.getEid()))
+                .collect(toList());
+    }
+
     @Override
     public List<ServiceProvider> getInstitutionalServicesForIdp(String instituteId) {
         return StringUtils.hasText(instituteId) ? this.serviceProviderMap.values().stream().filter(sp -> instituteId
@@ -120,7 +131,7 @@ public class ClassPathResourceManage implements Manage {
                     + 1L;
             exampleSingleTenants = parseProviders(getSingleTenantResource(),
                     sp -> this.serviceProvider(sp, EntityType.single_tenant_template));
-            exampleSingleTenants.values().forEach(singleTenant -> singleTenant.setEid(singleTenant.getEid() + maxEid));
+            exampleSingleTenants.replaceAll((entityId, singleTenant) -> singleTenant.withEid(singleTenant.getEid() + maxEid));
             LOG.debug("Initialized Manage Resources. Number of IDPs {}. Number of SPs {}", identityProviderMap.size(),
                     serviceProviderMap.size());
         } catch (Throwable e) {
@@ -147,11 +158,17 @@ public class ClassPathResourceManage implements Manage {
         return new ClassPathResource("manage/single-tenants.json");
     }
 
+    @Override
+    public String getMetadataVersion() {
+        return String.valueOf(metadataVersion.get());
+    }
+
     @Override
     public void connectWithoutInteraction(String idpId, String spId, String type, Optional<String> loaLevel) {
         IdentityProvider identityProvider = getIdentityProvider(idpId, false).orElseThrow
                 (RuntimeException::new);
-        identityProvider.addAllowedEntityId(spId);
+        identityProviderMap.put(idpId, identityProvider.withAllowedEntityId(spId));
+        metadataVersion.incrementAndGet();
     }
 
     @Override
@@ -0,0 +1,35 @@
+package dashboard.manage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dashboard.domain.IdentityProvider;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per node cache of the identity providers the logged in users work with. The providers are immutable and shared
+ * with all sessions.
+ */
+public class IdentityProviderCache {
+
+    private final Manage manage;
+    private final Cache<String, IdentityProvider> identityProviders = CacheBuilder.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
+    public IdentityProviderCache(Manage manage) {
+        this.manage = manage;
+    }
+
+    public Optional<IdentityProvider> getIdentityProvider(String idpEntityId) {
+        IdentityProvider identityProvider = identityProviders.getIfPresent(idpEntityId);
+        if (identityProvider != null) {
+            return Optional.of(identityProvider);
+        }
+        Optional<IdentityProvider> fromManage = manage.getIdentityProvider(idpEntityId, false);
+        fromManage.ifPresent(idp -> identityProviders.put(idpEntityId, idp));
+        return fromManage;
+    }
+}
@@ -1,6 +1,5 @@
 package dashboard.manage;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dashboard.domain.*;
 import dashboard.util.SpringSecurity;
@@ -10,7 +9,9 @@ import java.io.IOException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static dashboard.util.StreamUtils.filterEmpty;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.*;
 
@@ -37,6 +38,43 @@ public interface Manage {
 
     Optional<ServiceProvider> getServiceProviderById(Long spId, EntityType entityType);
 
+    /**
+     * Get the {@link ServiceProvider}s of all types by their eids. Unknown eids are left out.
+     *
+     * @param spIds the eids of the ServiceProviders
+     * @return list of {@link ServiceProvider}
+     */
+    default List<ServiceProvider> getServiceProvidersByIds(Collection<Long> spIds) {
+        return spIds.stream()
+                .flatMap(spId -> Stream.of(EntityType.saml20_sp, EntityType.oidc10_rp, EntityType.single_tenant_template)
+                        .map(type -> getServiceProviderById(spId, type)))
+                .collect(filterEmpty());
+    }
+
+    /**
+     * Get the {@link ServiceProvider}s of one type by their entity IDs. Unknown entity IDs are left out.
+     *
+     * @param spEntityIds     the entity ids of the ServiceProviders
+     * @param searchRevisions whether the revisions are searched for the entity IDs that no longer exist
+     * @return list of {@link ServiceProvider}
+     */
+    default List<ServiceProvider> getServiceProviders(Collection<String> spEntityIds, EntityType type, boolean searchRevisions) {
+        return spEntityIds.stream()
+                .map(spEntityId -> getServiceProvider(spEntityId, type, searchRevisions))
+                .collect(filterEmpty());
+    }
+
+    /**
+     * Get the last known revisions of the {@link ServiceProvider}s of one type that no longer exist, by their entity
+     * IDs. Unknown entity IDs are left out.
+     *
+     * @param spEntityIds the entity ids of the deleted ServiceProviders
+     * @return list of {@link ServiceProvider}
+     */
+    default List<ServiceProvider> getDeletedServiceProviders(Collection<String> spEntityIds, EntityType type) {
+        return new ArrayList<>();
+    }
+
     /**
      * Get an identity provider by its id.
      *
@@ -46,6 +84,19 @@ public interface Manage {
      */
     Optional<IdentityProvider> getIdentityProvider(String idpEntityId, boolean searchRevisions);
 
+    /**
+     * Get the identity providers by their entity IDs. Unknown entity IDs are left out.
+     *
+     * @param idpEntityIds    the ids.
+     * @param searchRevisions whether the revisions are searched for the ids that no longer exist
+     * @return List&lt;IdentityProvider&gt;
+     */
+    default List<IdentityProvider> getIdentityProviders(Collection<String> idpEntityIds, boolean searchRevisions) {
+        return idpEntityIds.stream()
+                .map(idpEntityId -> getIdentityProvider(idpEntityId, searchRevisions))
+                .collect(filterEmpty());
+    }
+
     /**
      * Get a list of all idps that have the same instituteId as the given one.
      *
@@ -81,10 +132,17 @@ public interface Manage {
 
     List<ServiceProvider> getByEntityIdin(List<String> entityIds);
 
+    /**
+     * Get a version of the metadata as seen by this dashboard. The version changes whenever the dashboard itself
+     * changed metadata and - for remote implementations - when the revisions of the entities changed, which is
+     * polled in the background.
+     *
+     * @return opaque version, only to be compared for equality, or null as long as the version is not known
+     */
+    String getMetadataVersion();
+
     default ServiceProvider serviceProvider(Map<String, Object> map, EntityType entityType) {
-        ServiceProvider serviceProvider = new ServiceProvider(map);
-        serviceProvider.setEntityType(entityType);
-        return serviceProvider;
+        return new ServiceProvider(map, entityType);
     }
 
     default IdentityProvider identityProvider(Map<String, Object> map) {
@@ -93,105 +151,14 @@ public interface Manage {
 
     default <T extends Provider> Map<String, T> parseProviders(Resource resource, Function<Map<String, Object>, T>
             provider) throws IOException {
-        List<Map<String, Object>> providers = objectMapper.readValue(resource.getInputStream(), new TypeReference<>() {
-        });
+        List<T> providers = ManageDocumentReader.read(resource.getInputStream(), provider);
 
         Map<String, T> result = providers.stream()
-                .map(this::transformManageMetadata).map(provider).collect(toSet()).stream().collect(toMap(Provider::getId,
+                .collect(toSet()).stream().collect(toMap(Provider::getId,
                         identity()));
         return result;
     }
 
-    default Map<String, Object> transformManageMetadata(Map<String, Object> metadata) {
-        Map<String, Object> data = (Map<String, Object>) metadata.get("data");
-        Map<String, Object> result = new HashMap<>();
-        result.put("internalId", metadata.get("_id"));
-        data.entrySet().forEach(entry -> {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            if (value instanceof Boolean) {
-                result.put(key, Boolean.class.cast(value) ? "yes" : "no");
-            } else if (value instanceof String) {
-                result.put(key, value);
-            } else if (value instanceof Number) {
-                result.put(key, value);
-            }
-            switch (key) {
-                case "metaDataFields": {
-                    Map<String, Object> metaDataFields = (Map<String, Object>) value;
-                    result.putAll(metaDataFields);
-                    break;
-                }
-                case "arp": {
-                    Map<String, Object> arp = (Map<String, Object>) value;
-                    Boolean enabled = (Boolean) arp.get("enabled");
-                    if (enabled) {
-                        Object attributesValue = arp.get("attributes");
-                        if (attributesValue instanceof Map) {
-                            Map<String, List<Map<String, String>>> attributes =
-                                    (Map<String, List<Map<String, String>>>) attributesValue;
-                            Map<String, List<String>> attributesMap = attributes.entrySet().stream()
-                                    .collect(toMap(
-                                            e -> e.getKey(),
-                                            e -> e.getValue().stream().map(m -> m.get("value")).collect(toList())));
-                            Map<String, String> motivationsMap = attributes.entrySet().stream()
-                                    .collect(toMap(
-                                            e -> e.getKey(),
-                                            e -> e.getValue().get(0).getOrDefault("motivation", "")));
-                            Map<String, String> sourcesMap = attributes.entrySet().stream()
-                                    .collect(toMap(
-                                            e -> e.getKey(),
-                                            e -> e.getValue().get(0).getOrDefault("source", "idp")));
-                            result.put("attributes", attributesMap);
-                            result.put("motivations", motivationsMap);
-                            result.put("sources", sourcesMap);
-                        } else {
-                            result.put("attributes", new HashMap<>());
-                            result.put("motivations", new HashMap<>());
-                            result.put("sources", new HashMap<>());
-                        }
-                    }
-                    break;
-                }
-                case "allowedEntities": {
-                    List<Map<String, String>> allowedEntities = (List<Map<String, String>>) value;
-                    List<String> allowedEntitiesList = allowedEntities.stream().map(m -> m.get("name")).collect(toList());
-                    result.put("allowedEntities", allowedEntitiesList);
-                    break;
-                }
-                case "disableConsent": {
-                    List<Map<String, String>> disableConsent = (List<Map<String, String>>) value;
-                    result.put("disableConsent", disableConsent.stream().map(m ->
-                            new Consent(m.get("name"),
-                                    m.containsKey("type") ? ConsentType.valueOf(m.get("type").toUpperCase()) : ConsentType.DEFAULT_CONSENT,
-                                    m.get("explanation:nl"),
-                                    m.get("explanation:en"),
-                                    m.get("explanation:pt"),
-                                    EntityType.saml20_sp.name())).collect(Collectors.toList()));
-                    break;
-
-                }
-                case "stepupEntities": {
-                    List<Map<String, String>> stepupEntities = (List<Map<String, String>>) value;
-                    result.put("stepupEntities", stepupEntities);
-                    break;
-                }
-                case "mfaEntities": {
-                    List<Map<String, String>> mfaEntities = (List<Map<String, String>>) value;
-                    result.put("mfaEntities", mfaEntities);
-                    break;
-                }
-                case "allowedResourceServers": {
-                    List<Map<String, String>> allowedResourceServers = (List<Map<String, String>>) value;
-                    result.put("allowedResourceServers", allowedResourceServers.stream().map(rs -> rs.get("name")).collect(toList()));
-                    break;
-                }
-            }
-
-        });
-        return result;
-    }
-
     void connectWithoutInteraction(String idpId, String spId, String type, Optional<String> loaLevel);
 
     Map<String, Object> createChangeRequests(ChangeRequest changeRequest);
@@ -205,7 +172,8 @@ public interface Manage {
             return Optional.empty();
         }
         Map<String, Object> pathUpdates = new HashMap<>();
-        Set<String> allowedEntityIds = source.getAllowedEntityIds();
+        // the source may be shared, the change request gets its own copy of the allowed entities
+        Set<String> allowedEntityIds = new HashSet<>(source.getAllowedEntityIds());
         if (add) {
             allowedEntityIds.add(target.getId());
         } else {
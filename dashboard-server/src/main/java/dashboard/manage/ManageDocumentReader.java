@@ -0,0 +1,229 @@
+package dashboard.manage;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dashboard.domain.Consent;
+import dashboard.domain.ConsentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Streaming reader of the documents returned by Manage. Each document is flattened into the metadata map the
+ * provider constructors read while it is parsed and is then turned into a provider, so no tree of the documents is
+ * built. The nested values are read straight into the typed values the providers keep: the allowed entities and
+ * resource servers as names, the arp as the released values, motivation and source per attribute, the disabled
+ * consent as {@link Consent}s and the stepup / mfa entities as maps of strings.
+ * <p>
+ * The flattened metadata contains the "_id" of the document as "internalId", its "version" as "revision", the
+ * scalar values of "data" with their json type and all metaDataFields.
+ */
+final class ManageDocumentReader {
+
+    private ManageDocumentReader() {
+    }
+
+    static <T> List<T> read(InputStream inputStream, Function<Map<String, Object>, T> provider) throws IOException {
+        List<T> result = new ArrayList<>();
+        try (JsonParser parser = Manage.objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of Manage documents, got " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                result.add(provider.apply(readDocument(parser)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the version of every document, keyed by the "_id" of the document, skipping all other values.
+     */
+    static Map<String, Long> readVersions(InputStream inputStream) throws IOException {
+        Map<String, Long> result = new HashMap<>();
+        try (JsonParser parser = Manage.objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of Manage documents, got " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String id = null;
+                long version = 0L;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("_id".equals(name)) {
+                        id = parser.getValueAsString();
+                    } else if ("version".equals(name)) {
+                        version = parser.getValueAsLong();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                result.put(id, version);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> readDocument(JsonParser parser) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("_id".equals(name)) {
+                result.put("internalId", readValue(parser));
+            } else if ("version".equals(name)) {
+                result.put("revision", readValue(parser));
+            } else if ("data".equals(name) && token == JsonToken.START_OBJECT) {
+                readData(parser, result);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void readData(JsonParser parser, Map<String, Object> result) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("metaDataFields".equals(key) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    result.put(field, readValue(parser));
+                }
+            } else if (("allowedEntities".equals(key) || "allowedResourceServers".equals(key)) &&
+                    token == JsonToken.START_ARRAY) {
+                // by far the largest part of an IdP, only the names are needed
+                result.put(key, readNames(parser));
+            } else if ("arp".equals(key) && token == JsonToken.START_OBJECT) {
+                readArp(parser, result);
+            } else if ("disableConsent".equals(key) && token == JsonToken.START_ARRAY) {
+                result.put(key, readEntries(parser).stream().map(ManageDocumentReader::consent).collect(toList()));
+            } else if (("stepupEntities".equals(key) || "mfaEntities".equals(key)) && token == JsonToken.START_ARRAY) {
+                result.put(key, readEntries(parser));
+            } else if (token.isScalarValue()) {
+                Object value = readValue(parser);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static List<String> readNames(JsonParser parser) throws IOException {
+        List<String> names = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("name".equals(field)) {
+                    name = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Reads an array of objects with scalar values, nested values are skipped.
+     */
+    private static List<Map<String, String>> readEntries(JsonParser parser) throws IOException {
+        List<Map<String, String>> entries = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Map<String, String> entry = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken().isScalarValue()) {
+                    entry.put(field, parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the attributes of an enabled arp into the released values, the motivation and the source per attribute.
+     * The motivation and source of an attribute are those of its first value.
+     */
+    private static void readArp(JsonParser parser, Map<String, Object> result) throws IOException {
+        boolean enabled = false;
+        Map<String, List<String>> attributes = new LinkedHashMap<>();
+        Map<String, String> motivations = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("enabled".equals(field)) {
+                enabled = token == JsonToken.VALUE_TRUE;
+            } else if ("attributes".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String attribute = parser.getCurrentName();
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    List<Map<String, String>> values = readEntries(parser);
+                    attributes.put(attribute, values.stream().map(value -> value.get("value")).collect(toList()));
+                    if (!values.isEmpty()) {
+                        motivations.put(attribute, values.get(0).getOrDefault("motivation", ""));
+                        sources.put(attribute, values.get(0).getOrDefault("source", "idp"));
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (enabled) {
+            result.put("attributes", attributes);
+            result.put("motivations", motivations);
+            result.put("sources", sources);
+        }
+    }
+
+    private static Consent consent(Map<String, String> entry) {
+        return new Consent(entry.get("name"),
+                entry.containsKey("type") ? ConsentType.valueOf(entry.get("type").toUpperCase()) : ConsentType.DEFAULT_CONSENT,
+                entry.get("explanation:nl"),
+                entry.get("explanation:en"),
+                entry.get("explanation:pt"),
+                EntityType.saml20_sp.name());
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.readValueAs(Object.class);
+        }
+    }
+}
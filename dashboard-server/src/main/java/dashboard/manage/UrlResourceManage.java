@@ -1,10 +1,14 @@
 package dashboard.manage;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import dashboard.domain.IdentityProvider;
+import dashboard.domain.Provider;
 import dashboard.domain.ServiceProvider;
 import dashboard.util.SpringSecurity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -16,18 +20,38 @@ import org.springframework.web.client.RestTemplate;
 
 import java.io.*;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @SuppressWarnings("unchecked")
-public class UrlResourceManage implements Manage {
+public class UrlResourceManage implements Manage, InitializingBean {
     private final static Logger LOG = LoggerFactory.getLogger(UrlResourceManage.class);
 
+    //Changes made directly in Manage are not pushed to us, so the revisions of all entities are polled
+    private static final List<String> VERSIONED_COLLECTIONS =
+            Arrays.asList("saml20_sp", "oidc10_rp", "single_tenant_template", "saml20_idp");
+    private static final long DEFAULT_METADATA_VERSION_SECONDS = 60;
+
     private final String manageBaseUrl;
 
     private final RestTemplate restTemplate = new RestTemplate();
     private final HttpHeaders httpHeaders;
+    private final AtomicLong metadataChanges = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "manage-metadata-version");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long metadataVersionSeconds;
+    private volatile String metadataFingerprint;
 
     private String requestedAttributes = "\"ALL_ATTRIBUTES\":true";
     private String body = "{" + requestedAttributes + "}";
@@ -41,10 +65,20 @@ public class UrlResourceManage implements Manage {
 
     private String findByEntityIdIn = "{\"data.entityid\":{\"$in\":[@@entityids@@]}}";
 
+    private String findByEidIn = "{\"data.eid\":{\"$in\":[@@eids@@]}}";
+
     public UrlResourceManage(
             String username,
             String password,
             String manageBaseUrl) {
+        this(username, password, manageBaseUrl, DEFAULT_METADATA_VERSION_SECONDS);
+    }
+
+    public UrlResourceManage(
+            String username,
+            String password,
+            String manageBaseUrl,
+            long metadataVersionSeconds) {
         this.manageBaseUrl = manageBaseUrl;
 
         this.httpHeaders = new HttpHeaders();
@@ -54,29 +88,27 @@ public class UrlResourceManage implements Manage {
         SimpleClientHttpRequestFactory requestFactory = (SimpleClientHttpRequestFactory) restTemplate
                 .getRequestFactory();
         requestFactory.setConnectTimeout(10 * 1000);
+
+        this.metadataVersionSeconds = metadataVersionSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        executor.scheduleWithFixedDelay(this::refreshMetadataVersion, 0, metadataVersionSeconds, TimeUnit.SECONDS);
     }
 
     @Override
     public List<ServiceProvider> getAllServiceProviders() {
-        List<Map<String, Object>> providers = getMaps(getSpInputStream(body));
-        List<Map<String, Object>> singleTenants = getMaps(getSingleTenantInputStream(body));
-        List<Map<String, Object>> rps = getMaps(getRPInputStream(body));
-
-        List<ServiceProvider> serviceProviders = providers.stream()
-                .map(this::transformManageMetadata)
-                .map(sp -> this.serviceProvider(sp, EntityType.saml20_sp))
-                .filter(sp -> !sp.isHidden())
-                .collect(Collectors.toList());
-
-        List<ServiceProvider> relayingParties = rps.stream()
-                .map(this::transformManageMetadata)
-                .map(rp -> this.serviceProvider(rp, EntityType.oidc10_rp))
-                .filter(rp -> !rp.isHidden())
-                .collect(Collectors.toList());
-
-        List<ServiceProvider> singleTenantsProviders = singleTenants.stream().map(this::transformManageMetadata)
-                .map(sp -> this.serviceProvider(sp, EntityType.single_tenant_template))
-                .collect(Collectors.toList());
+        List<ServiceProvider> serviceProviders = read(getSpInputStream(body),
+                sp -> this.serviceProvider(sp, EntityType.saml20_sp));
+        serviceProviders.removeIf(ServiceProvider::isHidden);
+
+        List<ServiceProvider> singleTenantsProviders = read(getSingleTenantInputStream(body),
+                sp -> this.serviceProvider(sp, EntityType.single_tenant_template));
+
+        List<ServiceProvider> relayingParties = read(getRPInputStream(body),
+                rp -> this.serviceProvider(rp, EntityType.oidc10_rp));
+        relayingParties.removeIf(ServiceProvider::isHidden);
 
         serviceProviders.addAll(singleTenantsProviders);
         serviceProviders.addAll(relayingParties);
@@ -97,11 +129,49 @@ public class UrlResourceManage implements Manage {
         }
         String body = bodyForEntity.replace("@@entityid@@", spEntityId);
 
-        List<Map<String, Object>> providers = getMaps(providerInputStream(type, body));
-        if (providers.isEmpty()) {
-            providers = getMaps(getSpRevisionInputStream(body));
+        List<ServiceProvider> providers = read(providerInputStream(type, body), sp -> this.serviceProvider(sp, type));
+        if (providers.isEmpty() && searchRevisions) {
+            providers = read(getSpRevisionInputStream(body), sp -> this.serviceProvider(sp, type));
+        }
+        return providers.stream().findFirst();
+    }
+
+    @Override
+    public List<ServiceProvider> getServiceProviders(Collection<String> spEntityIds, EntityType type, boolean searchRevisions) {
+        if (spEntityIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ServiceProvider> serviceProviders = rawSearchProviders(entityIdIn(spEntityIds), type);
+        if (!searchRevisions) {
+            return serviceProviders;
+        }
+        // only deleted entities are searched in the revisions
+        serviceProviders.addAll(getDeletedServiceProviders(missing(spEntityIds, serviceProviders), type));
+        return serviceProviders;
+    }
+
+    @Override
+    public List<ServiceProvider> getDeletedServiceProviders(Collection<String> spEntityIds, EntityType type) {
+        if (spEntityIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        return providers.stream().map(this::transformManageMetadata).map(sp -> this.serviceProvider(sp, type)).findFirst();
+        List<ServiceProvider> revisions = read(getSearchInputStream(entityIdIn(spEntityIds), type + "_revision"),
+                sp -> this.serviceProvider(sp, type));
+        // an entity has a revision for every change, the first one found is taken
+        Set<String> found = new HashSet<>();
+        revisions.removeIf(sp -> !found.add(sp.getId()));
+        return revisions;
+    }
+
+    private String entityIdIn(Collection<String> entityIds) {
+        String split = entityIds.stream().map(s -> "\"" + s + "\"").collect(Collectors.joining(","));
+        return findByEntityIdIn.replace("@@entityids@@", split);
+    }
+
+    private Set<String> missing(Collection<String> entityIds, List<? extends Provider> found) {
+        Set<String> missing = entityIds.stream().filter(StringUtils::hasText).collect(Collectors.toSet());
+        found.forEach(provider -> missing.remove(provider.getId()));
+        return missing;
     }
 
     @Override
@@ -110,8 +180,18 @@ public class UrlResourceManage implements Manage {
             return Optional.empty();
         }
         String body = bodyForEid.replace("@@eid@@", spId.toString());
-        List<Map<String, Object>> providers = getMaps(providerInputStream(entityType, body));
-        return providers.stream().map(this::transformManageMetadata).map(sp -> this.serviceProvider(sp, entityType)).findFirst();
+        return read(providerInputStream(entityType, body), sp -> this.serviceProvider(sp, entityType)).stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<ServiceProvider> getServiceProvidersByIds(Collection<Long> spIds) {
+        if (spIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String eids = spIds.stream().filter(Objects::nonNull).map(String::valueOf).collect(Collectors.joining(","));
+        return rawSearchProviders(findByEidIn.replace("@@eids@@", eids),
+                EntityType.saml20_sp, EntityType.oidc10_rp, EntityType.single_tenant_template);
     }
 
     @Override
@@ -121,37 +201,50 @@ public class UrlResourceManage implements Manage {
         }
         String body = bodyForEntity.replace("@@entityid@@", idpEntityId);
         InputStream inputStream = getIdpInputStream(body);
-        List<Map<String, Object>> providers = getMaps(inputStream);
-        if (providers.isEmpty()) {
-            providers = getMaps(getIdpRevisionInputStream(body));
+        List<IdentityProvider> providers = read(inputStream, this::identityProvider);
+        if (providers.isEmpty() && searchRevisions) {
+            providers = read(getIdpRevisionInputStream(body), this::identityProvider);
+        }
+        return providers.stream().findFirst();
+    }
+
+    @Override
+    public List<IdentityProvider> getIdentityProviders(Collection<String> idpEntityIds, boolean searchRevisions) {
+        if (idpEntityIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        return providers.stream().map(this::transformManageMetadata).map(this::identityProvider).findFirst();
+        List<IdentityProvider> identityProviders = read(getSearchInputStream(entityIdIn(idpEntityIds), EntityType.saml20_idp),
+                this::identityProvider);
+        if (!searchRevisions) {
+            return identityProviders;
+        }
+        // only deleted entities are searched one by one in the revisions
+        identityProviders.addAll(missing(idpEntityIds, identityProviders).stream()
+                .map(idpEntityId -> read(getIdpRevisionInputStream(bodyForEntity.replace("@@entityid@@", idpEntityId)),
+                        this::identityProvider))
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
+        return identityProviders;
     }
 
     @Override
     public List<IdentityProvider> getInstituteIdentityProviders(String instituteId) {
         String body = bodyForInstitutionId.replace("@@institution_id@@", instituteId);
         InputStream inputStream = getIdpInputStream(body);
-        List<Map<String, Object>> providers = getMaps(inputStream);
-        return providers.stream().map(this::transformManageMetadata).map(this::identityProvider)
-                .collect(Collectors.toList());
+        return read(inputStream, this::identityProvider);
     }
 
     @Override
     public List<IdentityProvider> getAllIdentityProviders() {
         InputStream inputStream = getIdpInputStream(body);
-        List<Map<String, Object>> providers = getMaps(inputStream);
-        return providers.stream().map(this::transformManageMetadata).map(this::identityProvider)
-                .collect(Collectors.toList());
+        return read(inputStream, this::identityProvider);
     }
 
     @Override
     public List<IdentityProvider> getLinkedIdentityProviders(String spId) {
         String replaced = linkedQuery.replace("@@entityid@@", spId);
         InputStream inputStream = getSearchInputStream(replaced, EntityType.saml20_idp);
-        List<Map<String, Object>> providers = getMaps(inputStream);
-        return providers.stream().map(this::transformManageMetadata).map(this::identityProvider)
-                .collect(Collectors.toList());
+        return read(inputStream, this::identityProvider);
     }
 
     @Override
@@ -162,17 +255,13 @@ public class UrlResourceManage implements Manage {
 
     @Override
     public List<ServiceProvider> getByEntityIdin(List<String> entityIds) {
-        String split = entityIds.stream().map(s -> "\"" + s + "\"").collect(Collectors.joining(","));
-        String query = findByEntityIdIn.replace("@@entityids@@", split);
-        return rawSearchProviders(query, EntityType.saml20_sp, EntityType.oidc10_rp);
+        return rawSearchProviders(entityIdIn(entityIds), EntityType.saml20_sp, EntityType.oidc10_rp);
     }
 
     private List<ServiceProvider> rawSearchProviders(String query, EntityType... types) {
         List<ServiceProvider> result = new ArrayList<>();
         Stream.of(types).forEach(type -> {
-            List<Map<String, Object>> maps = getMaps(getSearchInputStream(query, type));
-            result.addAll(maps.stream().map(this::transformManageMetadata).map(sp -> this.serviceProvider(sp, type))
-                    .collect(Collectors.toList()));
+            result.addAll(read(getSearchInputStream(query, type), sp -> this.serviceProvider(sp, type)));
         });
         return result;
 
@@ -181,17 +270,16 @@ public class UrlResourceManage implements Manage {
     @Override
     public List<ServiceProvider> getInstitutionalServicesForIdp(String instituteId) {
         String body = bodyForInstitutionId.replace("@@institution_id@@", instituteId);
-        List<Map<String, Object>> providers = getMaps(providerInputStream(EntityType.saml20_sp, body));
-        providers.addAll(getMaps(providerInputStream(EntityType.oidc10_rp, body)));
-        return providers.stream()
-                .map(this::transformManageMetadata)
-                .map(sp -> this.serviceProvider(sp, EntityType.saml20_sp))
-                .collect(Collectors.toList());
+        List<ServiceProvider> providers = read(providerInputStream(EntityType.saml20_sp, body),
+                sp -> this.serviceProvider(sp, EntityType.saml20_sp));
+        providers.addAll(read(providerInputStream(EntityType.oidc10_rp, body),
+                sp -> this.serviceProvider(sp, EntityType.saml20_sp)));
+        return providers;
     }
 
-    private List<Map<String, Object>> getMaps(InputStream inputStream) {
+    private <T> List<T> read(InputStream inputStream, Function<Map<String, Object>, T> provider) {
         try {
-            return objectMapper.readValue(inputStream, List.class);
+            return ManageDocumentReader.read(inputStream, provider);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -234,10 +322,14 @@ public class UrlResourceManage implements Manage {
     }
 
     private InputStream getSearchInputStream(String query, EntityType entityType) {
-        LOG.debug("Quering " + entityType + " metadata entries from {} with query {}", manageBaseUrl, body);
+        return getSearchInputStream(query, entityType.name());
+    }
+
+    private InputStream getSearchInputStream(String query, String collection) {
+        LOG.debug("Quering " + collection + " metadata entries from {} with query {}", manageBaseUrl, body);
         String url;
         try {
-            url = manageBaseUrl + "/manage/api/internal/rawSearch/" + entityType + "?query=" + URLEncoder.encode(query,
+            url = manageBaseUrl + "/manage/api/internal/rawSearch/" + collection + "?query=" + URLEncoder.encode(query,
                     "UTF-8");
         } catch (UnsupportedEncodingException e) {
             throw new IllegalArgumentException(e);
@@ -255,6 +347,52 @@ public class UrlResourceManage implements Manage {
         return new BufferedInputStream(new ByteArrayInputStream(responseEntity.getBody()));
     }
 
+    @Override
+    public String getMetadataVersion() {
+        String fingerprint = metadataFingerprint;
+        return fingerprint != null ? fingerprint + "." + metadataChanges.get() : null;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    void refreshMetadataVersion() {
+        try {
+            loadMetadataFingerprint();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not refresh the metadata version, keeping the last known version", e);
+        }
+    }
+
+    private synchronized String loadMetadataFingerprint() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        VERSIONED_COLLECTIONS.forEach(collection -> {
+            Map<String, Long> versions = getVersions(collection);
+            hasher.putString(collection, StandardCharsets.UTF_8).putInt(versions.size());
+            new TreeMap<>(versions).forEach((id, version) ->
+                    hasher.putString(String.valueOf(id), StandardCharsets.UTF_8).putLong(version));
+        });
+        String fingerprint = hasher.hash().toString().substring(0, 16);
+        if (!fingerprint.equals(metadataFingerprint)) {
+            LOG.debug("Metadata version changed to {}", fingerprint);
+        }
+        metadataFingerprint = fingerprint;
+        return fingerprint;
+    }
+
+    private Map<String, Long> getVersions(String collection) {
+        // without ALL_ATTRIBUTES Manage only returns the id, version and the summary of each entity
+        ResponseEntity<byte[]> responseEntity = restTemplate.exchange
+                (manageBaseUrl + "/manage/api/internal/search/" + collection, HttpMethod.POST,
+                        new HttpEntity<>("{}", this.httpHeaders), byte[].class);
+        try {
+            return ManageDocumentReader.readVersions(new ByteArrayInputStream(responseEntity.getBody()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void connectWithoutInteraction(String idpId, String spId, String type, Optional<String> loaLevel) {
         String url = manageBaseUrl + "/manage/api/internal/connectWithoutInteraction";
@@ -268,6 +406,7 @@ public class UrlResourceManage implements Manage {
 
         //Fire and forget. An exception will be thrown by the restTemplate if the return is not 20X
         restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(bodyMap, this.httpHeaders), byte[].class);
+        metadataChanges.incrementAndGet();
     }
 
     @Override
@@ -296,7 +435,7 @@ public class UrlResourceManage implements Manage {
     }
 
     private void configureStepupEntity(IdentityProvider identityProvider, String spEntityId, String note, List<ChangeRequest> changeRequests, String loa, boolean add) {
-        List<Map<String, String>> stepupEntities = identityProvider.getStepupEntities();
+        List<Map<String, String>> stepupEntities = new ArrayList<>(identityProvider.getStepupEntities());
         if (!add && stepupEntities.stream().noneMatch(map -> map.get("name").equals(spEntityId))) {
             return;
         }
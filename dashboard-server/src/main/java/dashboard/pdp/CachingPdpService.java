@@ -0,0 +1,190 @@
+package dashboard.pdp;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import dashboard.domain.CoinUser;
+import dashboard.domain.Policy;
+import dashboard.domain.Policy.Attribute;
+import dashboard.util.SpringSecurity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the policies per IdP, as the PDP evaluates them for the IdP of the user on every render of the policy
+ * overview. A created or updated policy invalidates the cached policies of all IdPs, as the PDP decides which
+ * policies they see and computes the revisions and the allowed actions of every policy in the overview. A deleted
+ * policy is removed from the cached policies of the IdP of the user and invalidates the others. The revisions of a
+ * policy only change with the policy itself. A value loaded while a change was made may predate the change, it is
+ * removed again instead of being served until it expires. The availability of the PDP is answered by the
+ * {@link PdpAvailabilityProbe} and the allowed attributes by the {@link PdpAttributeCatalog}.
+ */
+public class CachingPdpService implements PdpService {
+
+    private final PdpService pdpService;
+    private final PdpAvailabilityProbe availabilityProbe;
+    private final PdpAttributeCatalog attributeCatalog;
+    private final Cache<String, List<Policy>> policies;
+    private final Cache<PolicyKey, Policy> policy;
+    private final Cache<PolicyKey, List<Policy>> revisions;
+    // incremented on every change of this node
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingPdpService(PdpService pdpService, PdpAvailabilityProbe availabilityProbe,
+                             PdpAttributeCatalog attributeCatalog, long expireAfterSeconds,
+                             MeterRegistry meterRegistry) {
+        this.pdpService = pdpService;
+        this.availabilityProbe = availabilityProbe;
+        this.attributeCatalog = attributeCatalog;
+        this.policies = cache(expireAfterSeconds, 1_000);
+        this.policy = cache(expireAfterSeconds, 10_000);
+        this.revisions = cache(expireAfterSeconds, 10_000);
+        GuavaCacheMetrics.monitor(meterRegistry, policies, "dashboard.pdp.policies");
+        GuavaCacheMetrics.monitor(meterRegistry, policy, "dashboard.pdp.policy");
+        GuavaCacheMetrics.monitor(meterRegistry, revisions, "dashboard.pdp.revisions");
+    }
+
+    private static <K, V> Cache<K, V> cache(long expireAfterSeconds, long maximumSize) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<Policy> policies() {
+        return new ArrayList<>(get(policies, currentIdp(), pdpService::policies));
+    }
+
+    @Override
+    public Policy policy(Long id) {
+        return get(policy, new PolicyKey(currentIdp(), id), () -> pdpService.policy(id));
+    }
+
+    @Override
+    public Policy create(Policy policy) {
+        Policy created = pdpService.create(policy);
+        generation.incrementAndGet();
+        invalidate(created.getId());
+        return created;
+    }
+
+    @Override
+    public Policy update(Policy policy) {
+        Policy updated = pdpService.update(policy);
+        generation.incrementAndGet();
+        revisions.asMap().keySet().removeIf(key -> Objects.equals(key.id, policy.getId()));
+        invalidate(updated.getId());
+        return updated;
+    }
+
+    @Override
+    public ResponseEntity<String> delete(Long id) {
+        try {
+            return pdpService.delete(id);
+        } finally {
+            generation.incrementAndGet();
+            String idp = currentIdp();
+            policy.asMap().keySet().removeIf(key -> Objects.equals(key.id, id));
+            revisions.asMap().keySet().removeIf(key -> Objects.equals(key.id, id));
+            policies.asMap().computeIfPresent(idp, (key, cached) -> withoutPolicy(cached, id));
+            invalidateOtherIdps(idp);
+        }
+    }
+
+    @Override
+    public List<Policy> revisions(Long id) {
+        return new ArrayList<>(get(revisions, new PolicyKey(currentIdp(), id), () -> pdpService.revisions(id)));
+    }
+
+    @Override
+    public List<Attribute> allowedAttributes() {
+        return attributeCatalog.attributes();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return availabilityProbe.isAvailable();
+    }
+
+    /*
+     * Concurrent requests for a missing value wait for a single load. A change made while the value was loaded removes
+     * it before or after it was cached.
+     */
+    private <K, V> V get(Cache<K, V> cache, K key, Callable<V> loader) {
+        long loadGeneration = generation.get();
+        V result;
+        try {
+            result = cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+        if (generation.get() != loadGeneration) {
+            cache.asMap().remove(key, result);
+        }
+        return result;
+    }
+
+    /*
+     * The response of a change lacks what the PDP adds for the overview, so it is not cached in place of the policy
+     */
+    private void invalidate(Long id) {
+        policy.asMap().keySet().removeIf(key -> Objects.equals(key.id, id));
+        policies.invalidateAll();
+    }
+
+    private void invalidateOtherIdps(String idp) {
+        policies.asMap().keySet().removeIf(key -> !key.equals(idp));
+    }
+
+    private static List<Policy> withoutPolicy(List<Policy> cached, Long id) {
+        List<Policy> result = new ArrayList<>(cached);
+        result.removeIf(candidate -> Objects.equals(candidate.getId(), id));
+        return result;
+    }
+
+    private static String currentIdp() {
+        CoinUser user = SpringSecurity.getCurrentUser();
+        return user.getSwitchedToIdp().orElse(user.getIdp()).getId();
+    }
+
+    private static final class PolicyKey {
+
+        private final String idp;
+        private final Long id;
+
+        private PolicyKey(String idp, Long id) {
+            this.idp = idp;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PolicyKey policyKey = (PolicyKey) o;
+            return idp.equals(policyKey.idp) && Objects.equals(id, policyKey.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idp, id);
+        }
+    }
+}
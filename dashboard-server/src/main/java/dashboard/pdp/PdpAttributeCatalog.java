@@ -0,0 +1,60 @@
+package dashboard.pdp;
+
+import com.google.common.collect.ImmutableList;
+import dashboard.domain.Policy.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The attributes allowed in policies only change with a deployment of the PDP. They are loaded at startup and
+ * refreshed in the background; when the PDP is unreachable the last known attributes are kept. Only when the
+ * attributes were never loaded they are requested from the PDP directly.
+ */
+public class PdpAttributeCatalog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PdpAttributeCatalog.class);
+
+    private final Supplier<List<Attribute>> loader;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pdp-attributes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<Attribute> attributes;
+
+    public PdpAttributeCatalog(Supplier<List<Attribute>> loader, long refreshSeconds) {
+        this.loader = loader;
+        executor.scheduleWithFixedDelay(this::refresh, 0, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    public List<Attribute> attributes() {
+        List<Attribute> result = attributes;
+        return result != null ? result : load();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not refresh the allowed attributes of the PDP, keeping the last known attributes", e);
+        }
+    }
+
+    private synchronized List<Attribute> load() {
+        List<Attribute> loaded = ImmutableList.copyOf(loader.get());
+        attributes = loaded;
+        LOG.debug("Loaded {} allowed attributes of the PDP", loaded.size());
+        return loaded;
+    }
+}
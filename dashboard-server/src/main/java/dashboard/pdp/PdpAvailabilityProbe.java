@@ -0,0 +1,77 @@
+package dashboard.pdp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Probes the availability of the PDP in the background, so the availability is answered from memory instead of with an
+ * OPTIONS call to the PDP per request. The probes are spread by a random jitter on top of the interval, so the nodes
+ * of the dashboard do not probe the PDP at the same moment.
+ */
+public class PdpAvailabilityProbe implements HealthIndicator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PdpAvailabilityProbe.class);
+
+    private final BooleanSupplier probe;
+    private final long intervalMillis;
+    private final long jitterMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pdp-availability");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean available;
+    private volatile Instant lastProbe;
+
+    public PdpAvailabilityProbe(BooleanSupplier probe, long intervalSeconds, long jitterSeconds) {
+        this.probe = probe;
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+        this.jitterMillis = TimeUnit.SECONDS.toMillis(jitterSeconds);
+        executor.execute(this::probe);
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public Health health() {
+        Instant probed = lastProbe;
+        if (probed == null) {
+            return Health.unknown().build();
+        }
+        return (available ? Health.up() : Health.down()).withDetail("lastProbe", probed.toString()).build();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void probe() {
+        try {
+            boolean wasAvailable = available;
+            available = probe.getAsBoolean();
+            if (wasAvailable != available) {
+                LOG.info("PDP became {}", available ? "available" : "unavailable");
+            }
+        } catch (RuntimeException e) {
+            available = false;
+            LOG.warn("PDP availability probe failed", e);
+        }
+        lastProbe = Instant.now();
+        if (!executor.isShutdown()) {
+            long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+            executor.schedule(this::probe, intervalMillis + jitter, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dashboard.pdp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PdpConfiguration {
+
+    @ConditionalOnProperty(prefix = "dashboard.feature", name = "pdp", havingValue = "false")
+    @Bean
+    public PdpService mockPdpService() {
+        return new PdpServiceMock();
+    }
+
+    /*
+     * The availability probe and the attribute catalog are beans of their own, so their background refresh is stopped
+     * when the context is closed. The probe is registered as the "pdp" health contributor by its bean name.
+     */
+    @ConditionalOnProperty(prefix = "dashboard.feature", name = "pdp", havingValue = "true")
+    @Configuration
+    public static class PdpServerConfiguration {
+
+        private final PdpServiceImpl pdpServer;
+
+        public PdpServerConfiguration(@Value("${pdp.server}") String server,
+                                      @Value("${pdp.username}") String username,
+                                      @Value("${pdp.password}") String password) {
+            this.pdpServer = new PdpServiceImpl(server, username, password);
+        }
+
+        @Bean
+        public PdpAvailabilityProbe pdpHealthIndicator(@Value("${pdp.availabilityIntervalSeconds}") long intervalSeconds,
+                                                       @Value("${pdp.availabilityJitterSeconds}") long jitterSeconds) {
+            return new PdpAvailabilityProbe(pdpServer::isAvailable, intervalSeconds, jitterSeconds);
+        }
+
+        @Bean
+        public PdpAttributeCatalog pdpAttributeCatalog(@Value("${pdp.attributesRefreshSeconds}") long refreshSeconds) {
+            return new PdpAttributeCatalog(pdpServer::allowedAttributes, refreshSeconds);
+        }
+
+        @Bean
+        public PdpService pdpService(PdpAvailabilityProbe availabilityProbe,
+                                     PdpAttributeCatalog attributeCatalog,
+                                     @Value("${pdp.policyCacheSeconds}") long policyCacheSeconds,
+                                     MeterRegistry meterRegistry) {
+            return new CachingPdpService(pdpServer, availabilityProbe, attributeCatalog, policyCacheSeconds, meterRegistry);
+        }
+    }
+}
@@ -65,9 +65,12 @@ public class PdpServiceImpl implements PdpService, Constants {
             headers.setContentType(APPLICATION_JSON);
             headers.setAccept(ImmutableList.of(APPLICATION_JSON));
             headers.set(AUTHORIZATION, authorizationHeaderValue(username, password));
-            headers.set(X_IDP_ENTITY_ID, idp.getId());
-            headers.set(X_UNSPECIFIED_NAME_ID, user.getUid());
-            headers.set(X_DISPLAY_NAME, user.getDisplayName());
+            // the availability probe runs in the background without a user
+            if (idp != null) {
+                headers.set(X_IDP_ENTITY_ID, idp.getId());
+                headers.set(X_UNSPECIFIED_NAME_ID, user.getUid());
+                headers.set(X_DISPLAY_NAME, user.getDisplayName());
+            }
 
             return execution.execute(request, body);
         }));
@@ -23,11 +23,17 @@ import dashboard.domain.JiraResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ActionsService {
 
     JiraResponse searchTasks(String idp, JiraFilter jiraFilter);
 
+    /**
+     * Passes all tasks of the IdP matching the filter - ignoring its page - to the consumer, in the order of Jira.
+     */
+    void allTasks(String idp, JiraFilter jiraFilter, Consumer<Action> consumer);
+
     Action create(Action action);
 
     Action connectWithoutInteraction(Action action, Optional<String> loaLevel) throws IOException;
@@ -4,14 +4,35 @@ import dashboard.domain.Service;
 import dashboard.manage.EntityType;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface Services {
 
     List<Service> getServicesForIdp(String idpEntityId, boolean includeAll, Locale locale) throws IOException;
 
+    /**
+     * Same as {@link #getServicesForIdp(String, boolean, Locale)}, but each service is only built when the stream is
+     * consumed. The Service Providers and the IdP are fetched - and the current user is read - right away.
+     */
+    Stream<Service> streamServicesForIdp(String idpEntityId, boolean includeAll, Locale locale) throws IOException;
+
+    /**
+     * Same as {@link #getServicesForIdp(String, boolean, Locale)}, but only for the one Service Provider with the
+     * given entity ID, so only that Service Provider is fetched and checked for its connection.
+     */
+    Optional<Service> getServiceForIdp(String idpEntityId, String spEntityId, EntityType entityType,
+                                       boolean includeAll, Locale locale) throws IOException;
+
+    /**
+     * The services - as returned by {@link #getServicesForIdp(String, boolean, Locale)} - for the given eids, in the
+     * order of the given eids.
+     */
+    List<Service> getServicesForIdpByIds(String idpEntityId, Collection<Long> spIds, Locale locale) throws IOException;
+
     List<Service> getServicesByEntityIds(List<String> entityIds, Locale locale) throws IOException;
 
     Optional<Service> getServiceByEntityId(String idpEntityId, String spEntityId, EntityType entityType,
@@ -15,6 +15,8 @@
  */
 package dashboard.service.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import dashboard.domain.*;
 import dashboard.mail.MailBox;
 import dashboard.manage.EntityType;
@@ -22,6 +24,7 @@ import dashboard.manage.Manage;
 import dashboard.sab.Sab;
 import dashboard.sab.SabPerson;
 import dashboard.service.ActionsService;
+import dashboard.service.impl.JiraWorkflow.Step;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +36,11 @@ import org.springframework.util.StringUtils;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -44,12 +52,30 @@ import static java.util.stream.Collectors.toList;
 public class ActionsServiceImpl implements ActionsService {
     private static final Logger LOG = LoggerFactory.getLogger(ActionsServiceImpl.class);
 
-    private static final Pattern namePattern = Pattern.compile("^Applicant name: (.*)$", Pattern.MULTILINE);
-    private static final Pattern emailPattern = Pattern.compile("^Applicant email: (.*)$", Pattern.MULTILINE);
+    private static final Pattern applicantPattern = Pattern.compile("^Applicant (name|email): (.*)$", Pattern.MULTILINE);
+
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGES_IN_PARALLEL = 4;
+    private static final List<EntityType> SP_TYPES =
+            List.of(EntityType.saml20_sp, EntityType.oidc10_rp, EntityType.single_tenant_template);
+
+    private final ExecutorService pageExecutor = Executors.newFixedThreadPool(PAGES_IN_PARALLEL, runnable -> {
+        Thread thread = new Thread(runnable, "jira-pages");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Cache<String, Action> resolvedActions = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
 
     @Autowired
     private JiraClient jiraClient;
 
+    @Autowired
+    private JiraOutbox jiraOutbox;
+
     @Autowired
     private Manage manage;
 
@@ -63,40 +89,95 @@ public class ActionsServiceImpl implements ActionsService {
     private boolean sendAdministrationEmail;
 
     @Override
-    @SuppressWarnings("unchecked")
     public JiraResponse searchTasks(String idp, JiraFilter jiraFilter) {
         JiraResponse jiraResponse = jiraClient.searchTasks(idp, jiraFilter);
-        List<Action> issues = jiraResponse.getIssues();
-
-        Map<String, ServiceProvider> serviceProviders = serviceProviders(issues, EntityType.saml20_sp);
-
-        Map<String, ServiceProvider> relyingParties = serviceProviders(issues, EntityType.oidc10_rp);
+        jiraResponse.setIssues(enrich(jiraResponse.getIssues()));
+        return jiraResponse;
+    }
 
-        Map<String, ServiceProvider> singleTenants = serviceProviders(issues, EntityType.single_tenant_template);
+    @Override
+    public void allTasks(String idp, JiraFilter jiraFilter, Consumer<Action> consumer) {
+        // a page that can not be fetched aborts the export instead of leaving out its tickets
+        JiraResponse firstPage = jiraClient.searchTasksOrFail(idp, page(jiraFilter, 0));
+        enrich(firstPage.getIssues()).forEach(consumer);
+
+        // Jira may return fewer results per page than asked for, the pages are as large as the first one
+        int pageSize = firstPage.getMaxResults() > 0 ? firstPage.getMaxResults() : PAGE_SIZE;
+        // the next pages are fetched concurrently, at most PAGES_IN_PARALLEL ahead of the page that is consumed
+        Deque<CompletableFuture<JiraResponse>> pages = new ArrayDeque<>();
+        int startAt = pageSize;
+        while (startAt < firstPage.getTotal() || !pages.isEmpty()) {
+            while (startAt < firstPage.getTotal() && pages.size() < PAGES_IN_PARALLEL) {
+                JiraFilter page = page(jiraFilter, startAt);
+                pages.add(CompletableFuture.supplyAsync(() -> jiraClient.searchTasksOrFail(idp, page), pageExecutor));
+                startAt += pageSize;
+            }
+            JiraResponse jiraResponse = pages.removeFirst().join();
+            if (jiraResponse.getIssues().isEmpty()) {
+                LOG.warn("No tasks for {} starting at {} of {}", idp, jiraResponse.getStartAt(), firstPage.getTotal());
+            }
+            enrich(jiraResponse.getIssues()).forEach(consumer);
+        }
+    }
 
-        serviceProviders.putAll(relyingParties);
-        serviceProviders.putAll(singleTenants);
+    private JiraFilter page(JiraFilter jiraFilter, int startAt) {
+        JiraFilter page = new JiraFilter();
+        page.setFrom(jiraFilter.getFrom());
+        page.setTo(jiraFilter.getTo());
+        page.setSpEntityId(jiraFilter.getSpEntityId());
+        page.setKey(jiraFilter.getKey());
+        page.setStatuses(jiraFilter.getStatuses());
+        page.setTypes(jiraFilter.getTypes());
+        page.setSortBy(jiraFilter.getSortBy());
+        page.setSortAsc(jiraFilter.isSortAsc());
+        page.setStartAt(startAt);
+        page.setMaxResults(PAGE_SIZE);
+        return page;
+    }
 
-        Map<String, IdentityProvider> identityProviders = issues.stream()
+    /*
+     * The providers of all tickets are looked up in bulk per collection. Resolved tickets no longer change, so
+     * their enrichment is cached until Jira reports a newer update of the ticket.
+     */
+    private List<Action> enrich(List<Action> issues) {
+        Map<Action, Action> cached = new IdentityHashMap<>();
+        issues.forEach(action -> resolvedKey(action)
+                .map(resolvedActions::getIfPresent)
+                .ifPresent(enrichedAction -> cached.put(action, enrichedAction)));
+        List<Action> uncached = issues.stream().filter(action -> !cached.containsKey(action)).collect(toList());
+
+        Map<String, ServiceProvider> serviceProviders = new HashMap<>();
+        SP_TYPES.forEach(entityType -> serviceProviders.putAll(serviceProviders(uncached, entityType)));
+        // only the providers not found in any of the collections are searched in the revisions
+        uncached.stream()
+                .filter(action -> StringUtils.hasText(action.getSpId()) && !serviceProviders.containsKey(action.getSpId()))
+                .collect(Collectors.groupingBy(this::spType, Collectors.mapping(Action::getSpId, Collectors.toSet())))
+                .forEach((entityType, spIds) -> manage.getDeletedServiceProviders(spIds, entityType)
+                        .forEach(sp -> serviceProviders.putIfAbsent(sp.getId(), sp)));
+
+        Set<String> idpIds = uncached.stream()
                 .map(Action::getIdpId)
                 .filter(StringUtils::hasText)
-                .collect(Collectors.toSet())
-                .stream()
-                .map(idpId -> manage.getIdentityProvider(idpId, true))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toMap(Provider::getId, Function.identity()));
-
-        List<Action> enrichedActions = issues.stream()
-                .map(this::addUser)
-                .map(action -> action.unbuild()
-                        .spName(providerName(serviceProviders.get(action.getSpId())))
-                        .spEid(providerEid(serviceProviders.get(action.getSpId())))
-                        .idpName(providerName(identityProviders.get(action.getIdpId())))
-                        .build())
+                .collect(Collectors.toSet());
+        Map<String, IdentityProvider> identityProviders = manage.getIdentityProviders(idpIds, true).stream()
+                .collect(Collectors.toMap(Provider::getId, Function.identity(), (first, second) -> first));
+
+        return issues.stream()
+                .map(action -> cached.computeIfAbsent(action, uncachedAction -> {
+                    Action enrichedAction = addUser(uncachedAction).unbuild()
+                            .spName(providerName(serviceProviders.get(uncachedAction.getSpId())))
+                            .spEid(providerEid(serviceProviders.get(uncachedAction.getSpId())))
+                            .idpName(providerName(identityProviders.get(uncachedAction.getIdpId())))
+                            .build();
+                    resolvedKey(uncachedAction).ifPresent(key -> resolvedActions.put(key, enrichedAction));
+                    return enrichedAction;
+                }))
                 .collect(toList());
-        jiraResponse.setIssues(enrichedActions);
-        return jiraResponse;
+    }
+
+    private Optional<String> resolvedKey(Action action) {
+        return StringUtils.hasText(action.getResolution()) && action.getJiraKey() != null && action.getUpdateDate() != null ?
+                Optional.of(action.getJiraKey() + "@" + action.getUpdateDate().toInstant().toEpochMilli()) : Optional.empty();
     }
 
     private Map<String, ServiceProvider> serviceProviders(List<Action> issues, EntityType entityType) {
@@ -105,12 +186,16 @@ public class ActionsServiceImpl implements ActionsService {
                 .map(Action::getSpId)
                 .filter(StringUtils::hasText)
                 .collect(Collectors.toSet());
-        return entityIds
+        return manage.getServiceProviders(entityIds, entityType, false)
                 .stream()
-                .map(spId -> manage.getServiceProvider(spId, entityType, true))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toMap(Provider::getId, Function.identity()));
+                .collect(Collectors.toMap(Provider::getId, Function.identity(), (first, second) -> first));
+    }
+
+    private EntityType spType(Action action) {
+        return SP_TYPES.stream()
+                .filter(entityType -> entityType.name().equals(action.getTypeMetaData()))
+                .findFirst()
+                .orElse(EntityType.saml20_sp);
     }
 
     private String providerName(Provider provider) {
@@ -136,33 +221,22 @@ public class ActionsServiceImpl implements ActionsService {
 
     private Action addUser(Action action) {
         String body = action.getBody();
-
-        Optional<String> userEmail = findUserEmail(body);
-        Optional<String> userName = findUserName(body);
-
-        return action.unbuild()
-                .userEmail(userEmail.orElse("unknown"))
-                .userName(userName.orElse("unknown")).build();
-    }
-
-    private Optional<String> findUserEmail(String body) {
-        return matchingGroup(emailPattern, body);
-    }
-
-    private Optional<String> findUserName(String body) {
-        return matchingGroup(namePattern, body);
-    }
-
-    private Optional<String> matchingGroup(Pattern pattern, String input) {
-        if (!StringUtils.hasText(input)) {
-            return Optional.empty();
-        }
-        Matcher matcher = pattern.matcher(input);
-        if (matcher.find()) {
-            return Optional.ofNullable(matcher.group(1));
+        String userName = null;
+        String userEmail = null;
+        if (StringUtils.hasText(body)) {
+            Matcher matcher = applicantPattern.matcher(body);
+            while ((userName == null || userEmail == null) && matcher.find()) {
+                if ("name".equals(matcher.group(1))) {
+                    userName = userName == null ? matcher.group(2) : userName;
+                } else {
+                    userEmail = userEmail == null ? matcher.group(2) : userEmail;
+                }
+            }
         }
 
-        return Optional.empty();
+        return action.unbuild()
+                .userEmail(userEmail == null ? "unknown" : userEmail)
+                .userName(userName == null ? "unknown" : userName).build();
     }
 
     @Override
@@ -173,12 +247,9 @@ public class ActionsServiceImpl implements ActionsService {
         sendAdministrationEmail(savedAction);
 
         if (action.getType().equals(Action.Type.LINKINVITE)) {
-            String transitionId = jiraClient.validTransitions(jiraKey).get(JiraClient.START_PROGRESS);
-            jiraClient.transition(jiraKey, transitionId, Optional.empty(), Optional.empty());
-
-            transitionId = jiraClient.validTransitions(jiraKey).get(JiraClient.INPUT_NEEDED);
-            jiraClient.transition(jiraKey, transitionId, Optional.empty(), Optional.of("Waiting for approval of SCV."));
-
+            jiraOutbox.submit(jiraKey, Arrays.asList(
+                    Step.transition(JiraClient.START_PROGRESS),
+                    Step.transition(JiraClient.INPUT_NEEDED, "Waiting for approval of SCV.")));
         }
         return savedAction;
     }
@@ -246,16 +317,11 @@ public class ActionsServiceImpl implements ActionsService {
 
     @Override
     public void approveInviteRequest(String jiraKey, String comment, boolean transitionToResolved) {
-        Map<String, String> validTransitions = jiraClient.validTransitions(jiraKey);
-        String transitionId =  validTransitions.get(transitionToResolved ? JiraClient.RESOLVED : JiraClient.ANSWER_AUTOMATICALLY);
-        jiraClient.transition(jiraKey, transitionId, Optional.empty(), Optional.empty());
+        List<Step> steps = new ArrayList<>();
+        steps.add(Step.transition(transitionToResolved ? JiraClient.RESOLVED : JiraClient.ANSWER_AUTOMATICALLY));
         // There is no comment option in the Answer Automatically screen, so we need to do this after the transition
-        jiraClient.comment(jiraKey, comment);
-        if (transitionToResolved) {
-            validTransitions = jiraClient.validTransitions(jiraKey);
-            transitionId = validTransitions.get(JiraClient.RESOLVED);
-            jiraClient.transition(jiraKey, transitionId, Optional.empty(), Optional.empty());
-        }
+        steps.add(Step.comment(comment));
+        jiraOutbox.submit(jiraKey, steps);
     }
 
     @Override
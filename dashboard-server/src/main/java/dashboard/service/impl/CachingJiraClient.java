@@ -0,0 +1,221 @@
+package dashboard.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dashboard.domain.Action;
+import dashboard.domain.JiraFilter;
+import dashboard.domain.JiraResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Caches the Jira searches of an IdP for a short time, as the tickets are searched on every login and every view of
+ * the tickets tab. All ticket changes go through this client and invalidate the cached searches of the IdP of the
+ * ticket. The IdP of a ticket is remembered from the searches and creates; a change of an unknown ticket invalidates
+ * all searches. A search that was sent before an invalidation of its IdP is not cached, as it may miss the change.
+ * The cached actions are immutable, only the list of issues is copied for the callers.
+ */
+public class CachingJiraClient implements JiraClient {
+
+    private final JiraClient jiraClient;
+    private final Cache<SearchKey, JiraResponse> searches;
+    private final Cache<String, String> idpOfTicket = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong allGenerations = new AtomicLong();
+
+    public CachingJiraClient(JiraClient jiraClient, long expireAfterSeconds, MeterRegistry meterRegistry) {
+        this.jiraClient = jiraClient;
+        this.searches = CacheBuilder.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(expireAfterSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        FunctionCounter.builder("dashboard.jira.search.cache.hits", searches, cache -> cache.stats().hitCount())
+                .description("Jira searches answered from the cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("dashboard.jira.search.cache.misses", searches, cache -> cache.stats().missCount())
+                .description("Jira searches sent to Jira")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.jira.search.cache.size", searches, Cache::size)
+                .description("Number of cached Jira searches")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public JiraResponse searchTasks(String idp, JiraFilter jiraFilter) {
+        try {
+            return searchTasksOrFail(idp, jiraFilter);
+        } catch (IllegalStateException e) {
+            // logged by the delegate, a failed search is not cached
+            return new JiraResponse(new ArrayList<>(), 0, jiraFilter.getStartAt(), jiraFilter.getMaxResults());
+        }
+    }
+
+    @Override
+    public JiraResponse searchTasksOrFail(String idp, JiraFilter jiraFilter) {
+        SearchKey key = new SearchKey(idp, jiraFilter);
+        JiraResponse response = searches.getIfPresent(key);
+        if (response == null) {
+            long generation = generation(idp);
+            response = jiraClient.searchTasksOrFail(idp, jiraFilter);
+            response.getIssues().stream()
+                    .filter(action -> action.getJiraKey() != null && action.getIdpId() != null)
+                    .forEach(action -> idpOfTicket.put(action.getJiraKey(), action.getIdpId()));
+            searches.put(key, response);
+            // an invalidation since the search started removes the entry before or after it was put
+            if (generation(idp) != generation) {
+                searches.asMap().remove(key, response);
+            }
+        }
+        // the callers replace the issues of the response
+        return new JiraResponse(new ArrayList<>(response.getIssues()), response.getTotal(), response.getStartAt(),
+                response.getMaxResults());
+    }
+
+    @Override
+    public String create(Action action) throws IllegalStateException {
+        String jiraKey = jiraClient.create(action);
+        idpOfTicket.put(jiraKey, action.getIdpId());
+        invalidateIdp(action.getIdpId());
+        return jiraKey;
+    }
+
+    @Override
+    public Map<String, String> validTransitions(String key) {
+        return jiraClient.validTransitions(key);
+    }
+
+    @Override
+    public Optional<String> transitionId(String key, String name) {
+        return jiraClient.transitionId(key, name);
+    }
+
+    @Override
+    public void transition(String key, String transitionId, Optional<String> resolution, Optional<String> comment) {
+        try {
+            jiraClient.transition(key, transitionId, resolution, comment);
+        } finally {
+            invalidateTicket(key);
+        }
+    }
+
+    @Override
+    public void comment(String key, String comment) {
+        try {
+            jiraClient.comment(key, comment);
+        } finally {
+            invalidateTicket(key);
+        }
+    }
+
+    @Override
+    public List<String> comments(String key) {
+        return jiraClient.comments(key);
+    }
+
+    @Override
+    public void updateOptionalMessage(String jiraKey, String optionalMessage) {
+        try {
+            jiraClient.updateOptionalMessage(jiraKey, optionalMessage);
+        } finally {
+            invalidateTicket(jiraKey);
+        }
+    }
+
+    private void invalidateTicket(String jiraKey) {
+        String idp = idpOfTicket.getIfPresent(jiraKey);
+        if (idp == null) {
+            allGenerations.incrementAndGet();
+            searches.invalidateAll();
+        } else {
+            invalidateIdp(idp);
+        }
+    }
+
+    private void invalidateIdp(String idp) {
+        generations.computeIfAbsent(String.valueOf(idp), key -> new AtomicLong()).incrementAndGet();
+        searches.asMap().keySet().removeIf(key -> Objects.equals(key.idp, idp));
+    }
+
+    /*
+     * Both counters only increase, so the sum changes with every invalidation of the IdP
+     */
+    private long generation(String idp) {
+        AtomicLong generation = generations.get(String.valueOf(idp));
+        return allGenerations.get() + (generation == null ? 0L : generation.get());
+    }
+
+    private static final class SearchKey {
+
+        private final String idp;
+        private final int maxResults;
+        private final int startAt;
+        private final Long from;
+        private final Long to;
+        private final String spEntityId;
+        private final String key;
+        private final List<String> statuses;
+        private final List<Action.Type> types;
+        private final String sortBy;
+        private final boolean sortAsc;
+
+        private SearchKey(String idp, JiraFilter jiraFilter) {
+            this.idp = idp;
+            this.maxResults = jiraFilter.getMaxResults();
+            this.startAt = jiraFilter.getStartAt();
+            this.from = jiraFilter.getFrom();
+            this.to = jiraFilter.getTo();
+            this.spEntityId = jiraFilter.getSpEntityId();
+            this.key = jiraFilter.getKey();
+            // the order of the statuses and types does not change the query
+            this.statuses = jiraFilter.getStatuses() == null ? List.of() :
+                    jiraFilter.getStatuses().stream().distinct().sorted().collect(toList());
+            this.types = jiraFilter.getTypes() == null ? List.of() :
+                    jiraFilter.getTypes().stream().distinct().sorted().collect(toList());
+            this.sortBy = jiraFilter.getSortBy();
+            this.sortAsc = jiraFilter.isSortAsc();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SearchKey that = (SearchKey) o;
+            return maxResults == that.maxResults &&
+                    startAt == that.startAt &&
+                    sortAsc == that.sortAsc &&
+                    Objects.equals(idp, that.idp) &&
+                    Objects.equals(from, that.from) &&
+                    Objects.equals(to, that.to) &&
+                    Objects.equals(spEntityId, that.spEntityId) &&
+                    Objects.equals(key, that.key) &&
+                    Objects.equals(statuses, that.statuses) &&
+                    Objects.equals(types, that.types) &&
+                    Objects.equals(sortBy, that.sortBy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idp, maxResults, startAt, from, to, spEntityId, key, statuses, types, sortBy, sortAsc);
+        }
+    }
+}
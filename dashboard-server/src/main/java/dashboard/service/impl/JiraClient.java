@@ -33,13 +33,29 @@ public interface JiraClient {
 
     String create(Action action) throws IllegalStateException;
 
+    /**
+     * @return the tickets matching the filter, or no tickets when Jira could not be searched
+     */
     JiraResponse searchTasks(String idp, JiraFilter jiraFilter);
 
+    /**
+     * @return the tickets matching the filter
+     * @throws IllegalStateException when Jira could not be searched
+     */
+    JiraResponse searchTasksOrFail(String idp, JiraFilter jiraFilter) throws IllegalStateException;
+
     Map<String, String> validTransitions(String key);
 
+    /**
+     * @return the id of the transition with the given name, if it is valid for the current status of the ticket
+     */
+    Optional<String> transitionId(String key, String name);
+
     void transition(String key, String transitionId, Optional<String> resolution, Optional<String> comment);
 
     void comment(String key, String comment);
 
+    List<String> comments(String key);
+
     void updateOptionalMessage(String jiraKey, String optionalMessage);
 }
@@ -27,6 +27,7 @@ import dashboard.domain.JiraResponse;
 import dashboard.service.impl.JiraTicketSummaryAndDescriptionBuilder.SummaryAndDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.*;
 
@@ -37,10 +38,10 @@ import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -53,8 +54,6 @@ import static java.util.stream.Collectors.toList;
 public class JiraClientImpl implements JiraClient {
     private static final Logger LOG = LoggerFactory.getLogger(JiraClientImpl.class);
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-
     private String baseUrl;
     private RestTemplate restTemplate;
     private String projectKey;
@@ -64,6 +63,10 @@ public class JiraClientImpl implements JiraClient {
     private String environment;
     private ArrayList standardFields;
     private int dueDateWeeks;
+    private final JiraTransitions jiraTransitions = new JiraTransitions();
+    private final Map<String, Action.Type> issueTypes = new HashMap<>();
+    private final Map<Action.Type, String> issueTypeIdentifiers = new EnumMap<>(Action.Type.class);
+    private final JiraSearchResponseReader searchResponseReader;
 
     public JiraClientImpl(String baseUrl, String username, String password, String projectKey, int dueDateWeeks) throws IOException {
         this.projectKey = projectKey;
@@ -81,6 +84,20 @@ public class JiraClientImpl implements JiraClient {
         this.standardFields = new ArrayList(Arrays.asList("summary", "resolution", "status", "assignee", "issuetype",
                 "created", "description", "updated", "comment"));
         standardFields.addAll(this.mappings.get(this.environment).get("customFields").values().stream().map(s -> "customfield_" + s).collect(toList()));
+
+        Set<String> actionTypes = Arrays.stream(Action.Type.values()).map(Enum::name).collect(Collectors.toSet());
+        this.mappings.get(this.environment).get("issueTypes").forEach((name, identifier) -> {
+            if (actionTypes.contains(name.toUpperCase())) {
+                Action.Type type = Action.Type.valueOf(name.toUpperCase());
+                this.issueTypes.put(identifier, type);
+                this.issueTypeIdentifiers.put(type, identifier);
+            }
+        });
+        Map<String, JiraSearchResponseReader.CustomField> customFields = new HashMap<>();
+        for (JiraSearchResponseReader.CustomField customField : JiraSearchResponseReader.CustomField.values()) {
+            customFields.put(customFieldName(customField), customField);
+        }
+        this.searchResponseReader = new JiraSearchResponseReader(objectMapper.getFactory(), customFields, issueTypes::get);
     }
 
     @Override
@@ -101,7 +118,8 @@ public class JiraClientImpl implements JiraClient {
         if (action.getType().equals(Type.LINKINVITE)) {
             fields.put("customfield_" + emailToCustomField(), action.getEmailTo());
         }
-        fields.put("issuetype", ImmutableMap.of("id", actionToIssueIdentifier(action.getType())));
+        String issueType = actionToIssueIdentifier(action.getType());
+        fields.put("issuetype", ImmutableMap.of("id", issueType));
 
         SummaryAndDescription summaryAndDescription = JiraTicketSummaryAndDescriptionBuilder.build(action);
         fields.put("summary", summaryAndDescription.summary);
@@ -122,6 +140,7 @@ public class JiraClientImpl implements JiraClient {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(issue, defaultHeaders);
         try {
             Map<String, String> result = restTemplate.postForObject(baseUrl + "/issue", entity, Map.class);
+            jiraTransitions.ticket(result.get("key"), issueType, JiraTransitions.CREATED);
             return result.get("key");
         } catch (HttpClientErrorException e) {
             LOG.error("Failed to create Jira issue: {} ({}) with response:\n{}", e.getStatusCode(), e.getStatusText(), e
@@ -132,8 +151,17 @@ public class JiraClientImpl implements JiraClient {
 
     @Override
     public JiraResponse searchTasks(String idp, JiraFilter jiraFilter) {
+        try {
+            return searchTasksOrFail(idp, jiraFilter);
+        } catch (IllegalStateException e) {
+            // already logged
+            return new JiraResponse(new ArrayList<>(), 0, jiraFilter.getStartAt(), jiraFilter.getMaxResults());
+        }
+    }
+
+    @Override
+    public JiraResponse searchTasksOrFail(String idp, JiraFilter jiraFilter) {
         String query = buildQueryForIdp(idp, jiraFilter);
-        Map<String, Object> result = new HashMap<>();
         try {
             ImmutableMap<String, Object> body = ImmutableMap.of(
                     "jql", query,
@@ -143,37 +171,8 @@ public class JiraClientImpl implements JiraClient {
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, defaultHeaders);
 
             String url = baseUrl + "/search";
-            result = restTemplate.postForObject(url, entity, Map.class);
-            List<Action> issues = ((List<Map<String, Object>>) result.get("issues")).stream().map(issue -> {
-                Map<String, Object> fields = (Map<String, Object>) issue.get("fields");
-
-                boolean rejected = ((List) ((Map) fields.getOrDefault("comment", Collections.EMPTY_MAP)).getOrDefault(
-                        "comments", Collections.emptyList()))
-                        .stream()
-                        .filter(o -> ((String) ((Map) o).getOrDefault("body", "")).contains("rejected"))
-                        .findAny().isPresent();
-
-                String issueType = (String) ((Map<String, Object>) fields.get("issuetype")).get("id");
-                Map<String, String> resolution = (Map<String, String>) fields.get("resolution");
-                String typeMetaData = Optional.ofNullable((Map<String, String>) fields.get("customfield_" + typeMetaDataCustomField())).orElse(emptyMap()).getOrDefault("value", "");
-
-                return Action.builder()
-                        .jiraKey((String) issue.get("key"))
-                        .idpId(Optional.ofNullable((String) fields.get("customfield_" + idpCustomField())).orElse(""))
-                        .spId(Optional.ofNullable((String) fields.get("customfield_" + spCustomField())).orElse(""))
-                        .typeMetaData(typeMetaData)
-                        .emailTo(Optional.ofNullable((String) fields.get("customfield_" + emailToCustomField())).orElse(""))
-                        .status((String) ((Map<String, Object>) fields.get("status")).get("name"))
-                        .resolution(resolution != null ? resolution.get("name") : null)
-                        .type(findType(issueType))
-                        .personalMessage(Optional.ofNullable((String) fields.get("customfield_" + optionalMessageCustomField())).orElse(""))
-                        .requestDate(ZonedDateTime.parse((String) fields.get("created"), DATE_FORMATTER))
-                        .updateDate(ZonedDateTime.parse((String) fields.get("updated"), DATE_FORMATTER))
-                        .body((String) fields.get("description"))
-                        .rejected(rejected)
-                        .build();
-            }).collect(toList());
-            return new JiraResponse(issues, (Integer) result.get("total"), (Integer) result.get("startAt"), (Integer) result.get("maxResults"));
+            return restTemplate.execute(url, HttpMethod.POST, restTemplate.httpEntityCallback(entity),
+                    response -> searchResponse(response.getBody()));
 
         } catch (HttpStatusCodeException e) {
             if (e.getStatusCode().equals(HttpStatus.BAD_REQUEST)) {
@@ -182,32 +181,71 @@ public class JiraClientImpl implements JiraClient {
                 LOG.error("Jira returned a {} ({}) for query {}:\n{}", e.getStatusCode(), e.getStatusText(), query, e
                         .getResponseBodyAsString());
             }
+            throw new IllegalStateException(String.format("Jira could not be searched with query %s", query), e);
         } catch (Exception e) {
-            LOG.error(String.format("Error communicating with Jira: %s", result), e);
+            LOG.error(String.format("Error communicating with Jira for query %s", query), e);
+            throw new IllegalStateException(String.format("Jira could not be searched with query %s", query), e);
         }
-        return new JiraResponse(new ArrayList<>(), 0, jiraFilter.getStartAt(), jiraFilter.getMaxResults());
+    }
+
+    JiraResponse searchResponse(InputStream inputStream) throws IOException {
+        JiraResponse response = searchResponseReader.read(inputStream);
+        response.getIssues().forEach(action ->
+                jiraTransitions.ticket(action.getJiraKey(), issueTypeIdentifiers.get(action.getType()), action.getStatus()));
+        return response;
     }
 
     Action.Type findType(String issueType) {
-        return this.mappings.get(this.environment).get("issueTypes").entrySet().stream()
-                .filter(entry -> entry.getValue().equals(issueType))
-                .map(entry -> Action.Type.valueOf(entry.getKey().toUpperCase()))
-                .findFirst().orElseThrow(() -> new RuntimeException("No issue type for " + issueType));
+        Action.Type type = issueTypes.get(issueType);
+        if (type == null) {
+            throw new RuntimeException("No issue type for " + issueType);
+        }
+        return type;
     }
 
     String actionToIssueIdentifier(Action.Type actionType) {
-        return this.mappings.get(this.environment).get("issueTypes").entrySet().stream()
-                .filter(entry -> entry.getKey().equals(actionType.name().toLowerCase()))
-                .map(entry -> entry.getValue())
-                .findFirst().orElseThrow(() -> new RuntimeException("No action type for " + actionType));
+        String identifier = issueTypeIdentifiers.get(actionType);
+        if (identifier == null) {
+            throw new RuntimeException("No action type for " + actionType);
+        }
+        return identifier;
     }
 
     @Override
     public Map<String, String> validTransitions(String key) {
+        Map<String, JiraTransitions.Transition> transitions = jiraTransitions.transitions(key).orElseGet(() -> {
+            Map<String, JiraTransitions.Transition> live = liveTransitions(key);
+            jiraTransitions.learn(key, live);
+            return live;
+        });
+        return transitions.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getId()));
+    }
+
+    @Override
+    public Optional<String> transitionId(String key, String name) {
+        Optional<Map<String, JiraTransitions.Transition>> cached = jiraTransitions.transitions(key);
+        JiraTransitions.Transition transition = cached.map(transitions -> transitions.get(name)).orElse(null);
+        if (transition == null) {
+            Map<String, JiraTransitions.Transition> live = liveTransitions(key);
+            if (cached.isPresent()) {
+                // the ticket may have been moved in Jira since its status was cached
+                jiraTransitions.forget(key);
+            } else {
+                jiraTransitions.learn(key, live);
+            }
+            transition = live.get(name);
+        }
+        return Optional.ofNullable(transition).map(JiraTransitions.Transition::getId);
+    }
+
+    private Map<String, JiraTransitions.Transition> liveTransitions(String key) {
         String url = baseUrl + "/issue/" + key + "/transitions";
         Map body = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(defaultHeaders), Map.class).getBody();
         List<Map<String, Object>> transitions = (List) body.getOrDefault("transitions", new ArrayList<>());
-        return transitions.stream().collect(Collectors.toMap(map -> String.class.cast(map.get("name")), map -> String.class.cast(map.get("id"))));
+        return transitions.stream().collect(Collectors.toMap(
+                map -> String.class.cast(map.get("name")),
+                map -> new JiraTransitions.Transition(String.class.cast(map.get("id")),
+                        (String) ((Map<String, Object>) map.getOrDefault("to", emptyMap())).get("name"))));
     }
 
     @Override
@@ -217,6 +255,17 @@ public class JiraClientImpl implements JiraClient {
         restTemplate.exchange(commentUrl, HttpMethod.POST, commentRequestEntity, Map.class);
     }
 
+    @Override
+    public List<String> comments(String key) {
+        String commentUrl = baseUrl + "/issue/" + key + "/comment";
+        Map<String, Object> body = restTemplate.exchange(commentUrl, HttpMethod.GET, new HttpEntity<>(defaultHeaders),
+                new ParameterizedTypeReference<Map<String, Object>>() {
+                }).getBody();
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> comments = (List<Map<String, Object>>) body.getOrDefault("comments", new ArrayList<>());
+        return comments.stream().map(comment -> (String) comment.get("body")).collect(Collectors.toList());
+    }
+
     //    @Override
 //    public void attachments(String key, String... attachments) {
 //        String url = baseUrl + "/issue/" + key + "/attachments";
@@ -244,7 +293,23 @@ public class JiraClientImpl implements JiraClient {
             body.put("fields", singletonMap("resolution", singletonMap("name", resolution)));
         });
         HttpEntity<Object> requestEntity = new HttpEntity<>(body, defaultHeaders);
-        restTemplate.exchange(url, HttpMethod.POST, requestEntity, Map.class);
+        try {
+            restTemplate.exchange(url, HttpMethod.POST, requestEntity, Map.class);
+        } catch (HttpClientErrorException e) {
+            // the ticket was moved in Jira in the meantime, look up the transition of the current status
+            Optional<String> name = jiraTransitions.name(key, transitionId);
+            jiraTransitions.forget(key);
+            String liveTransitionId = name.map(n -> liveTransitions(key).get(n)).map(JiraTransitions.Transition::getId)
+                    .orElse(transitionId);
+            if (liveTransitionId.equals(transitionId)) {
+                throw e;
+            }
+            LOG.info("Transition {} of {} is {} instead of {}", name.get(), key, liveTransitionId, transitionId);
+            transitionId = liveTransitionId;
+            body.put("transition", singletonMap("id", transitionId));
+            restTemplate.exchange(url, HttpMethod.POST, requestEntity, Map.class);
+        }
+        jiraTransitions.transitioned(key, transitionId);
     }
 
     @Override
@@ -331,6 +396,13 @@ public class JiraClientImpl implements JiraClient {
         return this.customField("optionalMessage");
     }
 
+    /**
+     * @return the field name of the custom field in the search responses, e.g. customfield_13012
+     */
+    String customFieldName(JiraSearchResponseReader.CustomField customField) {
+        return "customfield_" + customField(customField.getKey());
+    }
+
     private String customField(String name) {
         return this.mappings.get(this.environment).get("customFields").get(name);
     }
@@ -32,6 +32,15 @@ public class JiraClientMock implements JiraClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(JiraClientMock.class);
 
+    private static final Map<String, String> TRANSITIONS = ImmutableMap.<String, String>builder()
+            .put("To Do", "1").put("In Progress", "2").put("Awaiting Input", "3").put("Resolved", "4").put("Closed", "5")
+            .put(START_PROGRESS, "6").put(INPUT_NEEDED, "7").put(ANSWER_AUTOMATICALLY, "8").put(RESOLVED, "9")
+            .build();
+
+    // the statuses the transitions of the workflows of the outbox lead to
+    private static final Map<String, String> WORKFLOW_STATUSES =
+            ImmutableMap.of("6", "In Progress", "7", "Awaiting Input", "8", "In Progress", "9", "Resolved");
+
     private Map<String, Action> repository = new LinkedHashMap<>();
 
     private AtomicInteger counter = new AtomicInteger(0);
@@ -78,9 +87,19 @@ public class JiraClientMock implements JiraClient {
         return new JiraResponse(actions, actions.size(), jiraFilter.getStartAt(), jiraFilter.getMaxResults());
     }
 
+    @Override
+    public JiraResponse searchTasksOrFail(String idp, JiraFilter jiraFilter) {
+        return searchTasks(idp, jiraFilter);
+    }
+
     @Override
     public Map<String, String> validTransitions(String key) {
-        return ImmutableMap.of("To Do", "1", "In Progress", "2", "Awaiting Input", "3", "Resolved", "4", "Closed", "5");
+        return TRANSITIONS;
+    }
+
+    @Override
+    public Optional<String> transitionId(String key, String name) {
+        return Optional.ofNullable(TRANSITIONS.get(name));
     }
 
     @Override
@@ -88,12 +107,18 @@ public class JiraClientMock implements JiraClient {
         //nope
     }
 
+    @Override
+    public List<String> comments(String key) {
+        return Collections.emptyList();
+    }
+
     @Override
     public void transition(String key, String transitionId, Optional<String> resolution, Optional<String> comment) {
         Action action = repository.get(key);
         if (action != null) {
             Map<String, String> transitions = validTransitions(key);
-            Optional<String> newStatusTxt = transitions.entrySet().stream().filter(entry -> entry.getValue().equals(transitionId)).map(entry -> entry.getKey()).findAny();
+            Optional<String> newStatusTxt = Optional.ofNullable(WORKFLOW_STATUSES.get(transitionId)).or(() ->
+                    transitions.entrySet().stream().filter(entry -> entry.getValue().equals(transitionId)).map(entry -> entry.getKey()).findAny());
             newStatusTxt.ifPresent(status -> {
                 repository.put(key, action.unbuild().status(status).build());
             });
@@ -0,0 +1,270 @@
+package dashboard.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dashboard.service.impl.JiraWorkflow.Step;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Executes the Jira workflows of the tickets - transitions and comments - in the background instead of in the request
+ * of the user. Every workflow is journaled as a json file in the outbox directory until all its steps are done, so
+ * pending workflows survive a restart. The workflows of a ticket are executed one after the other in the order they
+ * were submitted. A failed workflow is retried from the failed step with an exponential backoff, the failures are
+ * reported in the log and the metrics as the user who submitted the workflow has already been answered. A workflow
+ * that still fails after the maximum number of attempts is moved to the dead letter directory, so the next workflows
+ * of the ticket are not blocked forever. Dead letters have to be handled manually.
+ * <p>
+ * A step is journaled as in flight before it is sent to Jira. When an in flight step is replayed - after a failure or
+ * a restart - a comment already on the ticket is not added again and a transition that is no longer valid is taken as
+ * executed. A transition that is not valid for the ticket otherwise fails the workflow.
+ */
+public class JiraOutbox {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JiraOutbox.class);
+    private static final String SUFFIX = ".json";
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+    private static final int MAXIMUM_BACKOFF_EXPONENT = 7;
+
+    private final JiraClient jiraClient;
+    private final Path directory;
+    private final long retrySeconds;
+    private final int maxAttempts;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, JiraWorkflow> pending = new ConcurrentHashMap<>();
+    private final Map<String, Deque<JiraWorkflow>> tickets = new HashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jira-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter failures;
+    private final Counter invalidTransitions;
+    private final Counter replayedSteps;
+    private final Counter deadLetters;
+
+    public JiraOutbox(JiraClient jiraClient, File directory, long retrySeconds, int maxAttempts,
+                      MeterRegistry meterRegistry) throws IOException {
+        this.jiraClient = jiraClient;
+        this.directory = Files.createDirectories(directory.toPath());
+        this.retrySeconds = retrySeconds;
+        this.maxAttempts = maxAttempts;
+        this.failures = Counter.builder("dashboard.jira.outbox.failures")
+                .description("Failed attempts to execute a Jira workflow")
+                .register(meterRegistry);
+        this.invalidTransitions = Counter.builder("dashboard.jira.outbox.invalid.transitions")
+                .description("Transitions of a Jira workflow not valid for the status of the ticket")
+                .register(meterRegistry);
+        this.replayedSteps = Counter.builder("dashboard.jira.outbox.replayed.steps")
+                .description("Replayed steps of a Jira workflow that were already executed in Jira")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("dashboard.jira.outbox.dead.letters")
+                .description("Jira workflows given up after the maximum number of attempts")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.jira.outbox.depth", pending, Map::size)
+                .description("Number of pending Jira workflows")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.jira.outbox.age", pending, JiraOutbox::oldestAgeSeconds)
+                .description("Age of the oldest pending Jira workflow")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        List<JiraWorkflow> recovered;
+        try (Stream<Path> journal = Files.list(this.directory)) {
+            recovered = journal.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .map(this::recover)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        recovered.sort(Comparator.comparingLong(JiraWorkflow::getCreated));
+        recovered.forEach(workflow -> {
+            enqueue(workflow);
+            LOG.info("Recovered Jira workflow {} for {}", workflow.getId(), workflow.getJiraKey());
+        });
+    }
+
+    /**
+     * @return the id of the workflow, which is executed in the background
+     */
+    public String submit(String jiraKey, List<Step> steps) {
+        JiraWorkflow workflow = new JiraWorkflow(UUID.randomUUID().toString(), jiraKey, steps, System.currentTimeMillis());
+        try {
+            journal(workflow);
+        } catch (UncheckedIOException e) {
+            // still executed, but lost on a restart
+            LOG.error("Could not journal Jira workflow {} for {}", workflow.getId(), jiraKey, e);
+        }
+        enqueue(workflow);
+        LOG.info("Submitted Jira workflow {} for {}", workflow.getId(), jiraKey);
+        return workflow.getId();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Optional<JiraWorkflow> recover(Path path) {
+        try {
+            return Optional.of(objectMapper.readValue(path.toFile(), JiraWorkflow.class));
+        } catch (IOException e) {
+            LOG.error("Unreadable Jira workflow {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    /*
+     * Only the oldest workflow of a ticket is executed, the next one is started when it is done
+     */
+    private synchronized void enqueue(JiraWorkflow workflow) {
+        pending.put(workflow.getId(), workflow);
+        Deque<JiraWorkflow> workflows = tickets.computeIfAbsent(workflow.getJiraKey(), key -> new ArrayDeque<>());
+        workflows.add(workflow);
+        if (workflows.size() == 1) {
+            executor.execute(() -> execute(workflow));
+        }
+    }
+
+    private synchronized void done(JiraWorkflow workflow) {
+        pending.remove(workflow.getId());
+        Deque<JiraWorkflow> workflows = tickets.get(workflow.getJiraKey());
+        workflows.remove(workflow);
+        JiraWorkflow next = workflows.peek();
+        if (next == null) {
+            tickets.remove(workflow.getJiraKey());
+        } else {
+            executor.execute(() -> execute(next));
+        }
+    }
+
+    private void execute(JiraWorkflow workflow) {
+        try {
+            while (!workflow.isDone()) {
+                executeStep(workflow, workflow.getSteps().get(workflow.getNextStep()));
+                workflow.setNextStep(workflow.getNextStep() + 1);
+                workflow.setInFlight(false);
+                if (!workflow.isDone()) {
+                    journalQuietly(workflow);
+                }
+            }
+            Files.deleteIfExists(file(workflow));
+            done(workflow);
+        } catch (Exception e) {
+            failures.increment();
+            workflow.setAttempts(workflow.getAttempts() + 1);
+            if (workflow.getAttempts() >= maxAttempts) {
+                LOG.error("Jira workflow {} for {} failed at step {}, giving up after {} attempts",
+                        workflow.getId(), workflow.getJiraKey(), workflow.getNextStep(), workflow.getAttempts(), e);
+                deadLetter(workflow);
+                return;
+            }
+            long delay = retrySeconds << Math.min(workflow.getAttempts() - 1, MAXIMUM_BACKOFF_EXPONENT);
+            LOG.error("Jira workflow {} for {} failed at step {}, attempt {}. Retrying in {} seconds",
+                    workflow.getId(), workflow.getJiraKey(), workflow.getNextStep(), workflow.getAttempts(), delay, e);
+            journalQuietly(workflow);
+            executor.schedule(() -> execute(workflow), delay, TimeUnit.SECONDS);
+        }
+    }
+
+    private void deadLetter(JiraWorkflow workflow) {
+        deadLetters.increment();
+        journalQuietly(workflow);
+        try {
+            Path deadLetterDirectory = Files.createDirectories(directory.resolve(DEAD_LETTER_DIRECTORY));
+            Files.move(file(workflow), deadLetterDirectory.resolve(file(workflow).getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.error("Could not move Jira workflow {} to the dead letters", workflow.getId(), e);
+        }
+        done(workflow);
+    }
+
+    private void executeStep(JiraWorkflow workflow, Step step) {
+        String jiraKey = workflow.getJiraKey();
+        boolean replay = workflow.isInFlight();
+        if (step.getTransition() == null) {
+            if (replay && jiraClient.comments(jiraKey).contains(step.getComment())) {
+                replayedSteps.increment();
+                LOG.info("Comment was already added to {}, not adding it again", jiraKey);
+                return;
+            }
+            markInFlight(workflow);
+            jiraClient.comment(jiraKey, step.getComment());
+            return;
+        }
+        Optional<String> transitionId = jiraClient.transitionId(jiraKey, step.getTransition());
+        if (transitionId.isEmpty()) {
+            if (replay) {
+                replayedSteps.increment();
+                LOG.info("Transition {} is no longer valid for {}, it was already executed", step.getTransition(), jiraKey);
+                return;
+            }
+            invalidTransitions.increment();
+            throw new IllegalStateException(String.format("Transition %s is not valid for %s", step.getTransition(), jiraKey));
+        }
+        markInFlight(workflow);
+        jiraClient.transition(jiraKey, transitionId.get(), Optional.empty(), Optional.ofNullable(step.getComment()));
+    }
+
+    /*
+     * Journaled before the step is sent to Jira, as a failed request may still have been executed
+     */
+    private void markInFlight(JiraWorkflow workflow) {
+        if (!workflow.isInFlight()) {
+            workflow.setInFlight(true);
+            journalQuietly(workflow);
+        }
+    }
+
+    private void journalQuietly(JiraWorkflow workflow) {
+        try {
+            journal(workflow);
+        } catch (UncheckedIOException e) {
+            LOG.error("Could not journal Jira workflow {}", workflow.getId(), e);
+        }
+    }
+
+    private void journal(JiraWorkflow workflow) {
+        try {
+            Path file = file(workflow);
+            Path tmp = directory.resolve(workflow.getId() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), workflow);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(JiraWorkflow workflow) {
+        return directory.resolve(workflow.getId() + SUFFIX);
+    }
+
+    private static double oldestAgeSeconds(Map<String, JiraWorkflow> pending) {
+        OptionalLong oldest = pending.values().stream().mapToLong(JiraWorkflow::getCreated).min();
+        return oldest.isPresent() ? (System.currentTimeMillis() - oldest.getAsLong()) / 1000D : 0D;
+    }
+}
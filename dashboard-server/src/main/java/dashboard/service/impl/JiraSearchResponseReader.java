@@ -0,0 +1,235 @@
+package dashboard.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dashboard.domain.Action;
+import dashboard.domain.JiraResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Streaming reader of the Jira search response, the issues are mapped to actions while they are parsed. Only the
+ * fields the dashboard requests are read, all other values are skipped.
+ */
+final class JiraSearchResponseReader {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    enum CustomField {
+        IDP_ENTITY_ID("idpEntityId"),
+        SP_ENTITY_ID("spEntityId"),
+        TYPE_META_DATA("typeMetaData"),
+        EMAIL_TO("emailTo"),
+        OPTIONAL_MESSAGE("optionalMessage");
+
+        private final String key;
+
+        CustomField(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return the key of the custom field in the Jira mappings
+         */
+        String getKey() {
+            return key;
+        }
+    }
+
+    private final JsonFactory jsonFactory;
+    private final Map<String, CustomField> customFields;
+    private final Function<String, Action.Type> issueTypes;
+
+    /**
+     * @param customFields the custom fields by their field name, e.g. customfield_13012
+     * @param issueTypes   the type of the action for the id of the issue type
+     */
+    JiraSearchResponseReader(JsonFactory jsonFactory, Map<String, CustomField> customFields,
+                             Function<String, Action.Type> issueTypes) {
+        this.jsonFactory = jsonFactory;
+        this.customFields = customFields;
+        this.issueTypes = issueTypes;
+    }
+
+    JiraResponse read(InputStream inputStream) throws IOException {
+        List<Action> issues = new ArrayList<>();
+        int total = 0;
+        int startAt = 0;
+        int maxResults = 0;
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a Jira search response, got " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "total":
+                        total = parser.getIntValue();
+                        break;
+                    case "startAt":
+                        startAt = parser.getIntValue();
+                        break;
+                    case "maxResults":
+                        maxResults = parser.getIntValue();
+                        break;
+                    case "issues":
+                        if (token == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                issues.add(readIssue(parser));
+                            }
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return new JiraResponse(issues, total, startAt, maxResults);
+    }
+
+    private Action readIssue(JsonParser parser) throws IOException {
+        Action.Builder builder = Action.builder()
+                .idpId("")
+                .spId("")
+                .typeMetaData("")
+                .emailTo("")
+                .personalMessage("");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("key".equals(name)) {
+                builder.jiraKey(parser.getValueAsString());
+            } else if ("fields".equals(name) && token == JsonToken.START_OBJECT) {
+                readFields(parser, builder);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return builder.build();
+    }
+
+    private void readFields(JsonParser parser, Action.Builder builder) throws IOException {
+        boolean rejected = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "issuetype":
+                    String issueType = readProperty(parser, "id");
+                    Action.Type type = issueTypes.apply(issueType);
+                    if (type == null) {
+                        throw new IOException("No issue type for " + issueType);
+                    }
+                    builder.type(type);
+                    break;
+                case "status":
+                    builder.status(readProperty(parser, "name"));
+                    break;
+                case "resolution":
+                    builder.resolution(readProperty(parser, "name"));
+                    break;
+                case "created":
+                    builder.requestDate(ZonedDateTime.parse(parser.getText(), DATE_FORMATTER));
+                    break;
+                case "updated":
+                    builder.updateDate(ZonedDateTime.parse(parser.getText(), DATE_FORMATTER));
+                    break;
+                case "description":
+                    builder.body(parser.getValueAsString());
+                    break;
+                case "comment":
+                    rejected = readRejected(parser);
+                    break;
+                default:
+                    CustomField customField = customFields.get(name);
+                    if (customField == null) {
+                        parser.skipChildren();
+                    } else {
+                        readCustomField(parser, builder, customField);
+                    }
+            }
+        }
+        builder.rejected(rejected);
+    }
+
+    private void readCustomField(JsonParser parser, Action.Builder builder, CustomField customField) throws IOException {
+        if (customField == CustomField.TYPE_META_DATA) {
+            String value = readProperty(parser, "value");
+            builder.typeMetaData(value == null ? "" : value);
+            return;
+        }
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return;
+        }
+        String value = parser.getText();
+        switch (customField) {
+            case IDP_ENTITY_ID:
+                builder.idpId(value);
+                break;
+            case SP_ENTITY_ID:
+                builder.spId(value);
+                break;
+            case EMAIL_TO:
+                builder.emailTo(value);
+                break;
+            case OPTIONAL_MESSAGE:
+                builder.personalMessage(value);
+                break;
+        }
+    }
+
+    private boolean readRejected(JsonParser parser) throws IOException {
+        boolean rejected = false;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (!"comments".equals(name) || token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String body = readProperty(parser, "body");
+                rejected = rejected || (body != null && body.contains("rejected"));
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * @return the scalar property of the current object, which is read completely
+     */
+    private static String readProperty(JsonParser parser, String property) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (property.equals(name) && parser.currentToken().isScalarValue()) {
+                result = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+}
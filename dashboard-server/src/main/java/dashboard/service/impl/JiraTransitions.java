@@ -0,0 +1,123 @@
+package dashboard.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The transitions of the Jira workflow only depend on the issue type and the status of a ticket. They are looked up
+ * once per issue type and status, the issue type and status of the tickets are known from the searches, creates and
+ * transitions of this node. A ticket just created has the {@link #CREATED} status, as all tickets of an issue type
+ * start in the same status.
+ * <p>
+ * The status of a ticket also changes in Jira itself, so it is only trusted for a few minutes and the caller looks up
+ * a transition live when it is missing from the cached transitions.
+ */
+class JiraTransitions {
+
+    static final String CREATED = "";
+
+    private final Cache<String, State> ticketStates = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+    private final Cache<State, Map<String, Transition>> transitions = CacheBuilder.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * @return the transitions of the ticket by name, if its status and the transitions of that status are known
+     */
+    Optional<Map<String, Transition>> transitions(String key) {
+        State state = ticketStates.getIfPresent(key);
+        return state == null ? Optional.empty() : Optional.ofNullable(transitions.getIfPresent(state));
+    }
+
+    void learn(String key, Map<String, Transition> validTransitions) {
+        State state = ticketStates.getIfPresent(key);
+        if (state != null) {
+            transitions.put(state, validTransitions);
+        }
+    }
+
+    void ticket(String key, String issueType, String status) {
+        if (key != null && issueType != null && status != null) {
+            ticketStates.put(key, new State(issueType, status));
+        }
+    }
+
+    Optional<String> name(String key, String transitionId) {
+        return transitions(key).flatMap(byName -> byName.entrySet().stream()
+                .filter(entry -> entry.getValue().getId().equals(transitionId))
+                .map(Map.Entry::getKey)
+                .findFirst());
+    }
+
+    void transitioned(String key, String transitionId) {
+        State state = ticketStates.getIfPresent(key);
+        Optional<Transition> transition = transitions(key).flatMap(byName -> byName.values().stream()
+                .filter(candidate -> candidate.getId().equals(transitionId))
+                .findFirst());
+        if (state != null && transition.isPresent() && transition.get().getTo() != null) {
+            ticketStates.put(key, new State(state.issueType, transition.get().getTo()));
+        } else {
+            forget(key);
+        }
+    }
+
+    void forget(String key) {
+        ticketStates.invalidate(key);
+    }
+
+    static final class Transition {
+
+        private final String id;
+        private final String to;
+
+        Transition(String id, String to) {
+            this.id = id;
+            this.to = to;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        String getTo() {
+            return to;
+        }
+    }
+
+    private static final class State {
+
+        private final String issueType;
+        private final String status;
+
+        private State(String issueType, String status) {
+            this.issueType = issueType;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            State state = (State) o;
+            return issueType.equals(state.issueType) && status.equals(state.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(issueType, status);
+        }
+    }
+}
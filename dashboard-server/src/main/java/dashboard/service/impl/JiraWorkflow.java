@@ -0,0 +1,64 @@
+package dashboard.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * The transitions and comments to execute on a Jira ticket, in order, as journaled by the {@link JiraOutbox}.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class JiraWorkflow {
+
+    private String id;
+    private String jiraKey;
+    private List<Step> steps;
+    private int nextStep;
+    private boolean inFlight;
+    private int attempts;
+    private long created;
+
+    public JiraWorkflow(String id, String jiraKey, List<Step> steps, long created) {
+        this.id = id;
+        this.jiraKey = jiraKey;
+        this.steps = steps;
+        this.created = created;
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return nextStep >= steps.size();
+    }
+
+    /**
+     * A transition - by name, with an optional comment - or only a comment.
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @EqualsAndHashCode
+    public static class Step {
+
+        private String transition;
+        private String comment;
+
+        public static Step transition(String transition) {
+            return new Step(transition, null);
+        }
+
+        public static Step transition(String transition, String comment) {
+            return new Step(transition, comment);
+        }
+
+        public static Step comment(String comment) {
+            return new Step(null, comment);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package dashboard.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dashboard.domain.Category;
+import dashboard.domain.CategoryValue;
+import dashboard.domain.Service;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Keeps the facet values and counts of the services overview per IdP, locale and user variant - the part of the
+ * services that differs per user of an IdP, e.g. guest access. The facets are served as they are
+ * as long as the catalog version they were computed for is unchanged. A new version - a metadata refresh or a change
+ * by the dashboard itself - only applies the difference between the previously seen services and the current ones,
+ * the facet list itself is only rebuilt when a count actually changed.
+ */
+@Component
+public class ServiceFacets {
+
+    private final Cache<String, FacetIndex> indexes = CacheBuilder.newBuilder()
+            .maximumSize(1_000)
+            .build();
+
+    /**
+     * @param userVariant    the user dependent part of the services, users with the same variant share the facets
+     * @param catalogVersion the version of the metadata the services are built from, null when unknown
+     */
+    public List<Category> facets(String idpEntityId, Locale locale, String userVariant, String catalogVersion,
+                                 List<Service> services) {
+        FacetIndex index = indexes.asMap().computeIfAbsent(
+                String.join("|", idpEntityId, locale.getLanguage(), userVariant), key -> new FacetIndex());
+        return index.facets(catalogVersion, services);
+    }
+
+    private static class FacetIndex {
+
+        private final Map<String, Contribution> contributions = new HashMap<>();
+        private final Map<String, Map<String, int[]>> counts = new TreeMap<>();
+        private final Map<String, String> searchValues = new HashMap<>();
+        private List<Category> facets = Collections.emptyList();
+        private String catalogVersion;
+
+        synchronized List<Category> facets(String catalogVersion, List<Service> services) {
+            if (catalogVersion == null || !catalogVersion.equals(this.catalogVersion)) {
+                update(services);
+                this.catalogVersion = catalogVersion;
+            }
+            return facets;
+        }
+
+        private void update(List<Service> services) {
+            boolean changed = false;
+            Set<String> seen = new HashSet<>();
+            for (Service service : services) {
+                String key = service.getEntityType() + "|" + service.getSpEntityId();
+                if (!seen.add(key)) {
+                    continue;
+                }
+                Contribution contribution = new Contribution(service);
+                Contribution previous = contributions.put(key, contribution);
+                if (!contribution.equals(previous)) {
+                    apply(previous, -1);
+                    apply(contribution, 1);
+                    changed = true;
+                }
+            }
+            Iterator<Map.Entry<String, Contribution>> iterator = contributions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Contribution> entry = iterator.next();
+                if (!seen.contains(entry.getKey())) {
+                    apply(entry.getValue(), -1);
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+            if (changed) {
+                facets = Collections.unmodifiableList(counts.entrySet().stream()
+                        .map(entry -> new Category(entry.getKey(), searchValues.get(entry.getKey()),
+                                entry.getValue().entrySet().stream().map(value -> {
+                                    CategoryValue categoryValue = new CategoryValue(value.getKey());
+                                    categoryValue.setCount(value.getValue()[0]);
+                                    categoryValue.setConnectedCount(value.getValue()[1]);
+                                    return categoryValue;
+                                }).collect(toList())))
+                        .collect(toList()));
+            }
+        }
+
+        private void apply(Contribution contribution, int delta) {
+            if (contribution == null) {
+                return;
+            }
+            contribution.values.forEach((name, values) -> {
+                searchValues.putIfAbsent(name, contribution.searchValues.get(name));
+                Map<String, int[]> categoryCounts = counts.computeIfAbsent(name, key -> new TreeMap<>());
+                values.forEach(value -> {
+                    int[] valueCounts = categoryCounts.computeIfAbsent(value, key -> new int[2]);
+                    valueCounts[0] += delta;
+                    if (contribution.connected) {
+                        valueCounts[1] += delta;
+                    }
+                    if (valueCounts[0] == 0) {
+                        categoryCounts.remove(value);
+                    }
+                });
+                if (categoryCounts.isEmpty()) {
+                    counts.remove(name);
+                    searchValues.remove(name);
+                }
+            });
+        }
+    }
+
+    private static class Contribution {
+
+        private final Map<String, Set<String>> values = new HashMap<>();
+        private final Map<String, String> searchValues = new HashMap<>();
+        private final boolean connected;
+
+        Contribution(Service service) {
+            this.connected = service.isConnected();
+            if (service.getCategories() != null) {
+                service.getCategories().forEach(category -> {
+                    searchValues.put(category.getName(), category.getSearchValue());
+                    Set<String> categoryValues = values.computeIfAbsent(category.getName(), key -> new HashSet<>());
+                    category.getValues().forEach(value -> categoryValues.add(value.getValue()));
+                });
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Contribution that = (Contribution) o;
+            return connected == that.connected && values.equals(that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(values, connected);
+        }
+    }
+}
@@ -8,10 +8,13 @@ import dashboard.util.SpringSecurity;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static dashboard.domain.Provider.Language.*;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 public class ServicesImpl implements Services {
 
@@ -28,6 +31,37 @@ public class ServicesImpl implements Services {
 
     @Override
     public List<Service> getServicesForIdp(String idpEntityId, boolean includeAll, Locale locale) {
+        return streamServicesForIdp(idpEntityId, includeAll, locale).collect(toList());
+    }
+
+    @Override
+    public Stream<Service> streamServicesForIdp(String idpEntityId, boolean includeAll, Locale locale) {
+        return servicesForIdp(idpEntityId, manage.getAllServiceProviders().stream(), includeAll, locale);
+    }
+
+    @Override
+    public Optional<Service> getServiceForIdp(String idpEntityId, String spEntityId, EntityType entityType,
+                                              boolean includeAll, Locale locale) {
+        Stream<ServiceProvider> serviceProviders = manage.getServiceProvider(spEntityId, entityType, false)
+                .filter(sp -> entityType.equals(EntityType.single_tenant_template) || !sp.isHidden())
+                .stream();
+        return servicesForIdp(idpEntityId, serviceProviders, includeAll, locale).findFirst();
+    }
+
+    @Override
+    public List<Service> getServicesForIdpByIds(String idpEntityId, Collection<Long> spIds, Locale locale) {
+        if (spIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Stream<ServiceProvider> serviceProviders = manage.getServiceProvidersByIds(new HashSet<>(spIds)).stream()
+                .filter(sp -> sp.getEntityType().equals(EntityType.single_tenant_template) || !sp.isHidden());
+        Map<Long, Service> servicesById = servicesForIdp(idpEntityId, serviceProviders, false, locale)
+                .collect(toMap(Service::getId, Function.identity(), (first, second) -> first));
+        return spIds.stream().map(servicesById::get).filter(Objects::nonNull).collect(toList());
+    }
+
+    private Stream<Service> servicesForIdp(String idpEntityId, Stream<ServiceProvider> serviceProviders,
+                                           boolean includeAll, Locale locale) {
         IdentityProvider identityProvider;
         CoinUser currentUser = SpringSecurity.getCurrentUser();
         if (currentUser.isGuest()) {
@@ -37,21 +71,19 @@ public class ServicesImpl implements Services {
                     IllegalArgumentException(String.format("IDP %s does not exists", idpEntityId)));
         }
 
-        List<ServiceProvider> allServiceProviders = manage.getAllServiceProviders();
         Set<String> invitationRequestEntities = currentUser.getInvitationRequestEntities();
-        List<Service> services = allServiceProviders.stream()
+        return serviceProviders
                 .filter(sp -> !sp.isResourceServer() && !sp.isClientCredentials())
                 .map(sp -> {
                     Service service = this.buildApiService(sp, locale.getLanguage());
                     markServiceAsConnected(idpEntityId, identityProvider, sp, service);
                     service.setDashboardConnectOption(sp.getDashboardConnectOption());
+                    service.setFragmentKey(fragmentKey(sp, service, locale));
                     return service;
                 })
                 .filter(service -> !service.isIdpVisibleOnly() || service.isConnected() || includeAll ||
                         (service.getInstitutionId() != null && service.getInstitutionId().equals(identityProvider.getInstitutionId())) ||
-                        (invitationRequestEntities != null && invitationRequestEntities.contains(service.getSpEntityId())))
-                .collect(toList());
-        return services;
+                        (invitationRequestEntities != null && invitationRequestEntities.contains(service.getSpEntityId())));
     }
 
     @Override
@@ -93,10 +125,23 @@ public class ServicesImpl implements Services {
         return serviceProvider.map(sp -> {
             Service service = this.buildApiService(sp, locale.getLanguage());
             markServiceAsConnected(idpEntityId, identityProvider, sp, service);
+            service.setFragmentKey(fragmentKey(sp, service, locale));
             return service;
         });
     }
 
+    /*
+     * Everything a service is built from: the revision of the metadata, the locale and the IdP dependent flags.
+     * Without a revision we can't tell if the metadata changed, so the service is not keyed at all.
+     */
+    private static String fragmentKey(ServiceProvider sp, Service service, Locale locale) {
+        if (sp.getRevision() == null) {
+            return null;
+        }
+        return String.join("|", String.valueOf(sp.getEntityType()), sp.getId(), String.valueOf(sp.getRevision()),
+                locale.getLanguage(), String.valueOf(service.isConnected()), String.valueOf(service.isGuestEnabled()));
+    }
+
     @Override
     public List<Service> getInstitutionalServicesForIdp(String institutionId, Locale locale) {
         List<ServiceProvider> institutionalServicesForIdp = manage.getInstitutionalServicesForIdp(institutionId);
@@ -127,8 +172,6 @@ public class ServicesImpl implements Services {
         service.setDetailLogoUrl(sp.getLogoUrl());
         service.setLogoUrl(sp.getLogoUrl());
         service.setSupportMail(mailOfContactPerson(sp.getContactPerson(ContactPersonType.support)));
-        Map<String, String> homeUrls = sp.getHomeUrls();
-        service.setWebsiteUrl(CollectionUtils.isEmpty(homeUrls) ? null : homeUrls.values().iterator().next());
         service.setArp(sp.getArp());
         service.setIdpVisibleOnly(sp.isIdpVisibleOnly());
         service.setPolicyEnforcementDecisionRequired(sp.isPolicyEnforcementDecisionRequired());
@@ -213,6 +256,7 @@ public class ServicesImpl implements Services {
         service.setServiceUrl(sp.getUrl(lang));
         service.setWikiUrl(sp.getWikiUrl(lang));
         service.setSpName(sp.getName(lang));
+        service.setWebsiteUrl(homeUrl(sp.getHomeUrls(), locale));
 
         if ("en".equals(locale)) {
             service.setRegistrationPolicyUrl(sp.getRegistrationPolicyUrlEn());
@@ -226,12 +270,20 @@ public class ServicesImpl implements Services {
         }
     }
 
+    private String homeUrl(Map<String, String> homeUrls, String locale) {
+        if (CollectionUtils.isEmpty(homeUrls)) {
+            return null;
+        }
+        String homeUrl = homeUrls.containsKey(locale) ? homeUrls.get(locale) : homeUrls.get("en");
+        return homeUrl != null ? homeUrl : homeUrls.values().iterator().next();
+    }
+
     private void categories(ServiceProvider sp, Service service, String locale) {
         // Categories - the category values need to be either in nl or en (as the facet and facet_values are based on
         // the language setting)
         List<String> typeOfServices = locale.equals("en") ? sp.getTypeOfServicesEn() : locale.equals("pt") ? sp.getTypeOfServicesPt() : sp.getTypeOfServicesNl();
         if (CollectionUtils.isEmpty(typeOfServices)) {
-            typeOfServices.add(locale.equals("en") ? "Other" : locale.equals("pt") ? "Outro" : "Overig");
+            typeOfServices = Collections.singletonList(locale.equals("en") ? "Other" : locale.equals("pt") ? "Outro" : "Overig");
         }
         Category category = new Category(locale.equals("en") ? "Type of Service" : locale.equals("pt") ? "Tipo de Serviço" : "Type Service", "type_of_service",
                 typeOfServices.stream().map(CategoryValue::new).collect(toList()));
@@ -0,0 +1,47 @@
+package dashboard.shibboleth;
+
+import dashboard.domain.CoinUser;
+import dashboard.manage.IdentityProviderCache;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The session only contains the entity ids of the identity providers of a {@link CoinUser}. A user loaded from the
+ * session, possibly stored by another node, resolves its providers through the {@link IdentityProviderCache} of
+ * this node.
+ */
+public class IdentityProviderRestoringSecurityContextRepository implements SecurityContextRepository {
+
+    private final SecurityContextRepository delegate = new HttpSessionSecurityContextRepository();
+    private final IdentityProviderCache identityProviderCache;
+
+    public IdentityProviderRestoringSecurityContextRepository(IdentityProviderCache identityProviderCache) {
+        this.identityProviderCache = identityProviderCache;
+    }
+
+    @Override
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        SecurityContext context = delegate.loadContext(requestResponseHolder);
+        Authentication authentication = context.getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CoinUser) {
+            ((CoinUser) authentication.getPrincipal()).restoreIdentityProviders(identityProviderCache::getIdentityProvider);
+        }
+        return context;
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        delegate.saveContext(context, request, response);
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return delegate.containsContext(request);
+    }
+}
@@ -175,8 +175,9 @@ public class ShibbolethPreAuthenticatedProcessingFilter extends AbstractPreAuthe
             coinUser.addInstitutionIdp(idp);
         } else {
             coinUser.setIdp(getCurrentIdp(idpId, institutionIdentityProviders));
-            coinUser.getInstitutionIdps().addAll(institutionIdentityProviders);
-            Collections.sort(coinUser.getInstitutionIdps(), Comparator.comparing(Provider::getName));
+            institutionIdentityProviders.stream()
+                    .sorted(Comparator.comparing(Provider::getName))
+                    .forEach(coinUser::addInstitutionIdp);
         }
 
         Optional<SabRoleHolder> roles = sab.getRoles(uid);
@@ -203,17 +204,7 @@ public class ShibbolethPreAuthenticatedProcessingFilter extends AbstractPreAuthe
             coinUser.addAuthority(new CoinAuthority(ROLE_DASHBOARD_MEMBER));
         }
 
-        if (coinUser.isDashboardMember()) {
-            IdentityProvider idp = coinUser.getIdp();
-            if (!idp.isDisplayAdminEmailsInDashboard()) {
-                idp.getContactPersons().clear();
-            }
-            coinUser.getInstitutionIdps().forEach(anIdp -> {
-                if (!anIdp.isDisplayAdminEmailsInDashboard()) {
-                    anIdp.getContactPersons().clear();
-                }
-            });
-        }
+        coinUser.hideAdminEmailsFromMember();
 
         String idpEntityId = coinUser.getIdp().getId();
         JiraFilter jiraFilter = new JiraFilter();
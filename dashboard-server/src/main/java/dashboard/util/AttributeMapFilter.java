@@ -1,11 +1,10 @@
 package dashboard.util;
 
+import dashboard.domain.ARP;
 import dashboard.shibboleth.ShibbolethHeader;
 import dashboard.shibboleth.ShibbolethPreAuthenticatedProcessingFilter;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.regex.Pattern;
 
 import static java.util.stream.Collectors.toList;
 
@@ -88,28 +87,35 @@ public class AttributeMapFilter {
         }
     }
 
-    private static List<String> valuesToShow(List<String> filters, List<String> rawValues) {
-        if (filters.isEmpty()) {
+    private static List<String> valuesToShow(List<AttributeValueMatcher> matchers, List<String> rawValues) {
+        if (matchers.isEmpty()) {
             return rawValues;
         }
-        Collection<Pattern> patterns = filters.stream().map(filter -> Pattern.compile(filter.replaceAll("\\*", ".*"))).collect(toList());
-        return rawValues.stream().filter(value -> patterns.stream().anyMatch(p -> p.matcher(value).matches())).collect(toList());
+        return rawValues.stream().filter(value -> matchers.stream().anyMatch(m -> m.matches(value))).collect(toList());
     }
 
     public static Collection<ServiceAttribute> filterAttributes(Map<String, List<String>> serviceAttributes, Map<ShibbolethHeader, List<String>> userAttributes) {
-        Function<ServiceAttribute, List<String>> userValues = (serviceAttribute) -> {
-            ShibbolethHeader shibHeader = ShibbolethPreAuthenticatedProcessingFilter.shibHeaders.get(serviceAttribute.getName());
-            return Optional.ofNullable(userAttributes.get(shibHeader))
-                    .map(v -> {
-                        return valuesToShow(serviceAttribute.getFilters(), v);
-                    })
-                    .orElse(Collections.emptyList());
-        };
+        Map<String, List<AttributeValueMatcher>> matchers = new LinkedHashMap<>();
+        serviceAttributes.forEach((name, filters) ->
+                matchers.put(name, filters.stream().map(AttributeValueMatcher::compile).collect(toList())));
+        return filterAttributes(serviceAttributes, matchers, userAttributes);
+    }
+
+    public static Collection<ServiceAttribute> filterAttributes(ARP arp, Map<ShibbolethHeader, List<String>> userAttributes) {
+        return filterAttributes(arp.getAttributes(), arp.getAttributeMatchers(), userAttributes);
+    }
 
+    private static Collection<ServiceAttribute> filterAttributes(Map<String, List<String>> serviceAttributes,
+                                                                 Map<String, List<AttributeValueMatcher>> matchers,
+                                                                 Map<ShibbolethHeader, List<String>> userAttributes) {
         return serviceAttributes.entrySet().stream()
-                .map(entry -> new ServiceAttribute(entry.getKey(), entry.getValue()))
-                .map(serviceAttribute -> {
-                    serviceAttribute.addUserValues(userValues.apply(serviceAttribute));
+                .map(entry -> {
+                    ServiceAttribute serviceAttribute = new ServiceAttribute(entry.getKey(), entry.getValue());
+                    ShibbolethHeader shibHeader = ShibbolethPreAuthenticatedProcessingFilter.shibHeaders.get(entry.getKey());
+                    List<String> userValues = userAttributes.get(shibHeader);
+                    if (userValues != null) {
+                        serviceAttribute.addUserValues(valuesToShow(matchers.get(entry.getKey()), userValues));
+                    }
                     return serviceAttribute;
                 })
                 .collect(toList());
@@ -0,0 +1,91 @@
+package dashboard.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled form of an ARP attribute value filter, where '*' is a wildcard and every other character is taken
+ * literally. Filters that are a plain literal or only use a leading and / or trailing wildcard are matched without
+ * regular expressions. Filters with a wildcard in between are compiled to a {@link Pattern} of the quoted literal
+ * parts once.
+ */
+public final class AttributeValueMatcher {
+
+    private static final Cache<String, AttributeValueMatcher> matchers = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    private enum Kind {
+        ANY, LITERAL, PREFIX, SUFFIX, CONTAINS, PATTERN
+    }
+
+    private final Kind kind;
+    private final String literal;
+    private final Pattern pattern;
+
+    private AttributeValueMatcher(Kind kind, String literal, Pattern pattern) {
+        this.kind = kind;
+        this.literal = literal;
+        this.pattern = pattern;
+    }
+
+    public static AttributeValueMatcher compile(String filter) {
+        return matchers.asMap().computeIfAbsent(filter, AttributeValueMatcher::doCompile);
+    }
+
+    private static AttributeValueMatcher doCompile(String filter) {
+        String withoutWildcards = filter.replace("*", "");
+        int wildcards = filter.length() - withoutWildcards.length();
+        if (wildcards == 0) {
+            return new AttributeValueMatcher(Kind.LITERAL, filter, null);
+        }
+        if (withoutWildcards.isEmpty()) {
+            return new AttributeValueMatcher(Kind.ANY, null, null);
+        }
+        boolean leading = filter.startsWith("*");
+        boolean trailing = filter.endsWith("*");
+        if (wildcards == 1 && trailing) {
+            return new AttributeValueMatcher(Kind.PREFIX, withoutWildcards, null);
+        }
+        if (wildcards == 1 && leading) {
+            return new AttributeValueMatcher(Kind.SUFFIX, withoutWildcards, null);
+        }
+        if (wildcards == 2 && leading && trailing) {
+            return new AttributeValueMatcher(Kind.CONTAINS, withoutWildcards, null);
+        }
+        String regex = Arrays.stream(filter.split("\\*", -1))
+                .map(part -> part.isEmpty() ? "" : Pattern.quote(part))
+                .collect(Collectors.joining(".*"));
+        return new AttributeValueMatcher(Kind.PATTERN, null, Pattern.compile(regex));
+    }
+
+    public boolean matches(String value) {
+        switch (kind) {
+            case ANY:
+                return true;
+            case LITERAL:
+                return literal.equals(value);
+            case PREFIX:
+                return value.startsWith(literal);
+            case SUFFIX:
+                return value.endsWith(literal);
+            case CONTAINS:
+                return value.contains(literal);
+            default:
+                return pattern.matcher(value).matches();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeValueMatcher{" +
+                "kind=" + kind +
+                ", literal='" + literal + '\'' +
+                ", pattern=" + pattern +
+                '}';
+    }
+}
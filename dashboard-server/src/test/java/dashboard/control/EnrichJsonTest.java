@@ -8,10 +8,16 @@ import dashboard.domain.CoinAuthority;
 import dashboard.domain.CoinAuthority.Authority;
 import dashboard.domain.CoinUser;
 import dashboard.domain.Service;
+import dashboard.domain.ServiceSummary;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import static dashboard.shibboleth.ShibbolethHeader.Shib_DisplayName;
 import static dashboard.shibboleth.ShibbolethHeader.Shib_Email;
@@ -24,16 +30,12 @@ import static org.junit.Assert.assertFalse;
 
 public class EnrichJsonTest {
 
-    private Gson gson = new GsonBuilder().setExclusionStrategies(new ExcludeJsonIgnore()).create();
-
     private boolean statsEnabled = true;
 
     @Test
     public void testSuperUserToCoinUser() throws Exception {
         CoinUser coinUser = RestDataFixture.coinUser("ben");
-        JsonElement jsonElement = createJsonResponse(coinUser);
-
-        EnrichJson.forUser(this.statsEnabled, coinUser).json(jsonElement).forPayload(coinUser);
+        JsonElement jsonElement = enrich(coinUser, coinUser);
 
         assertFalse(getPayloadAsJsonObjectFromRoot(jsonElement).getAsJsonPrimitive("superUser").getAsBoolean());
     }
@@ -41,9 +43,7 @@ public class EnrichJsonTest {
     @Test
     public void testAddDashboardAdminToCoinUser() throws Exception {
         CoinUser coinUser = RestDataFixture.coinUser("ben");
-        JsonElement jsonElement = createJsonResponse(coinUser);
-
-        EnrichJson.forUser(this.statsEnabled, coinUser).json(jsonElement).forPayload(coinUser);
+        JsonElement jsonElement = enrich(coinUser, coinUser);
 
         assertFalse(getPayloadAsJsonObjectFromRoot(jsonElement).getAsJsonPrimitive("dashboardAdmin").getAsBoolean());
     }
@@ -55,16 +55,12 @@ public class EnrichJsonTest {
         Service service1 = RestDataFixture.serviceWithSpEntityId("id-1");
         Service service2 = RestDataFixture.serviceWithSpEntityId("id-2", service -> {
             service.setId(2l);
-            ARP arp = new ARP();
-            arp.setNoArp(false);
-            arp.setNoAttrArp(false);
-            arp.setAttributes(ImmutableMap.of("service", asList("bar")));
+            ARP arp = ARP.fromAttributes(ImmutableMap.of("service", asList("bar")));
             service.setArp(arp);
         });
 
         List<Service> payload = asList(service1, service2);
-        JsonElement jsonElement = createJsonResponse(payload);
-        EnrichJson.forUser(this.statsEnabled, coinUser).json(jsonElement).forPayload(payload);
+        JsonElement jsonElement = enrich(coinUser, payload);
 
         assertEquals(0, getServiceFromRoot(jsonElement, 0).getAsJsonArray(EnrichJson.FILTERED_USER_ATTRIBUTES).size());
         assertEquals(1, getServiceFromRoot(jsonElement, 1).getAsJsonArray(EnrichJson.FILTERED_USER_ATTRIBUTES).size());
@@ -76,27 +72,65 @@ public class EnrichJsonTest {
         coinUser.addAttribute(Shib_Email, asList("bar"));
         Service service1 = RestDataFixture.serviceWithSpEntityId("id-1", service -> {
             service.setId(10l);
-            ARP arp = new ARP();
-            arp.setNoArp(false);
-            arp.setNoAttrArp(false);
-            arp.setAttributes(ImmutableMap.of("Shib-InetOrgPerson-mail", asList("bar")));
+            ARP arp = ARP.fromAttributes(ImmutableMap.of("Shib-InetOrgPerson-mail", asList("bar")));
             service.setArp(arp);
         });
 
-        JsonElement jsonElement = createJsonResponse(service1);
-        EnrichJson.forUser(this.statsEnabled, coinUser).json(jsonElement).forPayload(service1);
+        JsonElement jsonElement = enrich(coinUser, service1);
 
         assertEquals(1, getPayloadAsJsonObjectFromRoot(jsonElement).getAsJsonArray(EnrichJson.FILTERED_USER_ATTRIBUTES).size());
     }
 
     @Test
-    public void dashboardAuthoritiesShouldBeFiltered() {
+    public void testServiceFragmentIsCachedPerKey() throws Exception {
+        CoinUser coinUser = RestDataFixture.coinUser("ben");
+        coinUser.addAttribute(Shib_Email, asList("bar"));
+        Service service = RestDataFixture.serviceWithSpEntityId("id-fragment", s -> {
+            ARP arp = ARP.fromAttributes(ImmutableMap.of("Shib-InetOrgPerson-mail", asList("bar")));
+            s.setArp(arp);
+        });
+        JsonElement expected = enrich(coinUser, asList(service));
+
+        service.setFragmentKey("EnrichJsonTest|id-fragment");
+        assertEquals(expected, enrich(coinUser, asList(service)));
+
+        // same key, so the cached fragment is used but the user attributes are still filtered per user
+        service.setName("changed");
+        CoinUser otherUser = RestDataFixture.coinUser("john");
+        JsonObject json = getServiceFromRoot(enrich(otherUser, asList(service)), 0);
+        assertEquals(expected.getAsJsonObject().getAsJsonArray("payload").get(0).getAsJsonObject().get("name"), json.get("name"));
+        assertEquals(0, json.getAsJsonArray(EnrichJson.FILTERED_USER_ATTRIBUTES).size());
+
+        service.setFragmentKey(null);
+        assertEquals("changed", getServiceFromRoot(enrich(coinUser, asList(service)), 0).get("name").getAsString());
+    }
+
+    @Test
+    public void testFragmentsAreSplicedIntoStream() throws Exception {
+        CoinUser coinUser = RestDataFixture.coinUser("ben");
+        coinUser.addAttribute(Shib_Email, asList("bar"));
+        Service service = RestDataFixture.serviceWithSpEntityId("id-stream", s -> {
+            ARP arp = ARP.fromAttributes(ImmutableMap.of("Shib-InetOrgPerson-mail", asList("bar")));
+            s.setArp(arp);
+        });
+        service.setFragmentKey("EnrichJsonTest|id-stream");
+        Map<String, Object> overview = ImmutableMap.of("apps", asList(new ServiceSummary(service)), "services",
+                asList(service, service));
+
+        JsonElement expected = enrich(coinUser, overview);
+        assertEquals(expected, enrichToStream(coinUser, overview));
+        assertEquals(expected, enrichToStream(coinUser, overview));
+        assertEquals("id-stream", getPayloadAsJsonObjectFromRoot(expected).getAsJsonArray("apps").get(0)
+                .getAsJsonObject().get("spEntityId").getAsString());
+    }
+
+    @Test
+    public void dashboardAuthoritiesShouldBeFiltered() throws IOException {
         CoinUser coinUser = RestDataFixture.coinUser("john");
 
         coinUser.addAuthority(new CoinAuthority(Authority.ROLE_DASHBOARD_ADMIN));
 
-        JsonElement jsonElement = createJsonResponse(coinUser);
-        EnrichJson.forUser(this.statsEnabled, coinUser).json(jsonElement).forPayload(coinUser);
+        JsonElement jsonElement = enrich(coinUser, coinUser);
 
         List<JsonElement> authorities = Lists.newArrayList(getPayloadAsJsonObjectFromRoot(jsonElement).getAsJsonArray
                 ("grantedAuthorities"));
@@ -114,8 +148,16 @@ public class EnrichJsonTest {
         return getPayloadFromRoot(jsonElement).getAsJsonArray();
     }
 
-    private JsonElement createJsonResponse(Object object) {
-        return gson.toJsonTree(RestResponse.of(Locale.ENGLISH, object));
+    private JsonElement enrich(CoinUser coinUser, Object payload) throws IOException {
+        StringWriter writer = new StringWriter();
+        EnrichJson.forUser(this.statsEnabled, coinUser).write(RestResponse.of(Locale.ENGLISH, payload), writer);
+        return JsonParser.parseString(writer.toString());
+    }
+
+    private JsonElement enrichToStream(CoinUser coinUser, Object payload) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        EnrichJson.forUser(this.statsEnabled, coinUser).write(RestResponse.of(Locale.ENGLISH, payload), outputStream);
+        return JsonParser.parseString(outputStream.toString(StandardCharsets.UTF_8));
     }
 
     private JsonElement getPayloadFromRoot(JsonElement jsonElement) {
@@ -1,19 +1,28 @@
 package dashboard.control;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import dashboard.domain.Category;
+import dashboard.domain.ARP;
 import dashboard.domain.CategoryValue;
+import dashboard.domain.Service;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.mock.http.MockHttpOutputMessage;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.IntStream;
 
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class GsonHttpMessageConverterTest {
     private GsonHttpMessageConverter converter;
@@ -43,4 +52,22 @@ public class GsonHttpMessageConverterTest {
         converter.write(RestResponse.of(Locale.ENGLISH, categoryValue), MediaType.APPLICATION_JSON, outputMessage);
         assertNotNull(outputMessage.getBodyAsString());
     }
+
+    @Test
+    public void testWriteLargeServiceList() throws Exception {
+        ARP arp = ARP.fromAttributes(ImmutableMap.of("urn:mace:dir:attribute-def:mail", asList("*")));
+        List<Service> services = IntStream.range(0, 2000)
+                .mapToObj(i -> RestDataFixture.serviceWithSpEntityId("https://sp" + i, service -> {
+                    service.setId(i);
+                    service.setArp(arp);
+                }))
+                .collect(toList());
+
+        converter.write(RestResponse.of(Locale.ENGLISH, services), MediaType.APPLICATION_JSON, outputMessage);
+
+        JsonArray payload = JsonParser.parseString(outputMessage.getBodyAsString()).getAsJsonObject().getAsJsonArray("payload");
+        assertEquals(2000, payload.size());
+        assertEquals("https://sp1999", payload.get(1999).getAsJsonObject().get("spEntityId").getAsString());
+        assertTrue(payload.get(1999).getAsJsonObject().get(EnrichJson.FILTERED_USER_ATTRIBUTES).isJsonArray());
+    }
 }
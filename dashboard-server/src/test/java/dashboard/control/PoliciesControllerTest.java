@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableMap;
 import dashboard.domain.CoinAuthority;
 import dashboard.domain.CoinUser;
 import dashboard.domain.Policy;
+import dashboard.domain.Policy.Attribute;
 import dashboard.domain.ServiceProvider;
 import dashboard.filter.SpringSecurityUtil;
 import dashboard.mail.MailBox;
@@ -18,14 +19,17 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
@@ -75,6 +79,19 @@ public class PoliciesControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void attributesAreNotModified() throws Exception {
+        when(pdpServiceMock.allowedAttributes()).thenReturn(List.of(new Attribute("urn:mace:dir:attribute-def:eduPersonAffiliation",
+                "Edu person affiliation")));
+
+        String eTag = mockMvc.perform(get("/dashboard/api/policies/attributes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/dashboard/api/policies/attributes").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     public void creatingAPdpWithADuplicateName() throws Exception {
         CoinUser user = RestDataFixture.coinUser("henk");
@@ -1,5 +1,6 @@
 package dashboard.control;
 
+import au.com.bytecode.opencsv.CSVReader;
 import dashboard.domain.*;
 import dashboard.filter.EnsureAccessToIdpFilter;
 import dashboard.filter.SpringSecurityUtil;
@@ -7,6 +8,7 @@ import dashboard.manage.EntityType;
 import dashboard.manage.Manage;
 import dashboard.service.ActionsService;
 import dashboard.service.Services;
+import dashboard.service.impl.ServiceFacets;
 import dashboard.util.CookieThenAcceptHeaderLocaleResolver;
 import org.junit.After;
 import org.junit.Before;
@@ -14,12 +16,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static dashboard.control.Constants.HTTP_X_IDP_ENTITY_ID;
@@ -27,11 +36,13 @@ import static dashboard.control.RestDataFixture.coinUser;
 import static dashboard.control.RestDataFixture.serviceWithSpEntityId;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
@@ -52,6 +63,8 @@ public class ServicesControllerTest {
     private Services servicesMock;
     @Mock
     private ActionsService actionsServiceMock;
+    @Spy
+    private ServiceFacets serviceFacets = new ServiceFacets();
     private MockMvc mockMvc;
 
     @Before
@@ -76,6 +89,8 @@ public class ServicesControllerTest {
         when(manageMock.getIdentityProvider(anyString(), anyBoolean())).thenReturn(Optional.empty());
         when(manageMock.getIdentityProvider(IDP_ENTITY_ID, false)).thenReturn(Optional.of(institutionIdentityProvider));
         when(servicesMock.getServicesForIdp(IDP_ENTITY_ID, false, Locale.ENGLISH)).thenReturn(services);
+        when(servicesMock.getServiceForIdp(IDP_ENTITY_ID, SP_ENTITY_ID, EntityType.saml20_sp, false, Locale.ENGLISH))
+                .thenReturn(Optional.of(service));
     }
 
     @After
@@ -92,7 +107,60 @@ public class ServicesControllerTest {
                         .header(HTTP_X_IDP_ENTITY_ID, IDP_ENTITY_ID))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.payload.apps").isArray())
-                .andExpect(jsonPath("$.payload.apps[0].name").value(service.getName()));
+                .andExpect(jsonPath("$.payload.apps[0].name").value(service.getName()))
+                .andExpect(jsonPath("$.payload.apps[0].motivations").doesNotExist())
+                .andExpect(jsonPath("$.payload.apps[0]." + EnrichJson.FILTERED_USER_ATTRIBUTES).doesNotExist())
+                .andExpect(jsonPath("$.payload.facets").isArray());
+    }
+
+    @Test
+    public void thatConnectedServicesAreSummarized() throws Exception {
+        service.setConnected(true);
+        when(servicesMock.getServicesForIdp(IDP_ENTITY_ID, false, Locale.ENGLISH)).thenReturn(services);
+
+        this.mockMvc.perform(get("/dashboard/api/services/connected")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HTTP_X_IDP_ENTITY_ID, IDP_ENTITY_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload[0].spEntityId").value(service.getSpEntityId()))
+                .andExpect(jsonPath("$.payload[0].connected").value(true))
+                .andExpect(jsonPath("$.payload[0].contactPersons").doesNotExist());
+    }
+
+    @Test
+    public void thatServicesAreNotModifiedForMatchingETag() throws Exception {
+        when(manageMock.getMetadataVersion()).thenReturn("1");
+
+        String eTag = this.mockMvc.perform(get("/dashboard/api/services")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HTTP_X_IDP_ENTITY_ID, IDP_ENTITY_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/dashboard/api/services")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .header(HTTP_X_IDP_ENTITY_ID, IDP_ENTITY_ID))
+                .andExpect(status().isNotModified());
+
+        when(manageMock.getMetadataVersion()).thenReturn("2");
+
+        this.mockMvc.perform(get("/dashboard/api/services")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .header(HTTP_X_IDP_ENTITY_ID, IDP_ENTITY_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload.apps").isArray());
+    }
+
+    @Test
+    public void thatServicesHaveNoETagForUnknownMetadataVersion() throws Exception {
+        this.mockMvc.perform(get("/dashboard/api/services")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HTTP_X_IDP_ENTITY_ID, IDP_ENTITY_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
     }
 
     @Test
@@ -206,11 +274,38 @@ public class ServicesControllerTest {
 
     @Test
     public void download() throws IOException {
-        Map<String, Object> body = new HashMap<>();
-        body.put("idp", IDP_ENTITY_ID);
-        body.put("ids", asList(1, 2, 3));
-        List<String[]> download = controller.download(body, Locale.ENGLISH);
+        ServicesDownloadRequest body = new ServicesDownloadRequest();
+        body.setIdp(IDP_ENTITY_ID);
+        body.setIds(asList(1L, 2L, 3L));
+        when(servicesMock.getServicesForIdpByIds(IDP_ENTITY_ID, asList(1L, 2L, 3L), Locale.ENGLISH)).thenReturn(services);
+        List<String[]> download = readCsv(controller.download(body, Locale.ENGLISH));
         String[] row = download.get(1);
         assertEquals("samenstellen.Of u mooi", row[4]);
     }
+
+    @Test
+    public void downloadAllWithColumnSelection() throws IOException {
+        ServicesDownloadRequest body = new ServicesDownloadRequest();
+        body.setIdp(IDP_ENTITY_ID);
+        body.setColumns(asList("entityID", "connected"));
+        when(servicesMock.streamServicesForIdp(IDP_ENTITY_ID, false, Locale.ENGLISH)).thenReturn(services.stream());
+        List<String[]> download = readCsv(controller.download(body, Locale.ENGLISH));
+        assertEquals(2, download.size());
+        assertArrayEquals(new String[]{"entityID", "connected"}, download.get(0));
+        assertArrayEquals(new String[]{SP_ENTITY_ID, "false"}, download.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void downloadUnknownColumn() throws IOException {
+        ServicesDownloadRequest body = new ServicesDownloadRequest();
+        body.setIdp(IDP_ENTITY_ID);
+        body.setColumns(asList("nope"));
+        controller.download(body, Locale.ENGLISH);
+    }
+
+    private List<String[]> readCsv(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        return new CSVReader(new StringReader(outputStream.toString(StandardCharsets.UTF_8))).readAll();
+    }
 }
@@ -0,0 +1,125 @@
+package dashboard.control;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import dashboard.domain.Action;
+import dashboard.domain.IdentityProvider;
+import dashboard.domain.ServiceConnectionRequest;
+import dashboard.domain.ServiceProvider;
+import dashboard.mail.MailBox;
+import dashboard.manage.EntityType;
+import dashboard.manage.Manage;
+import dashboard.sab.Sab;
+import dashboard.service.ActionsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SpDashboardControllerTest {
+
+    private final Gson gson = new Gson();
+    private ActionsService actionsService;
+    private MailBox mailBox;
+    private Sab sab;
+    private Manage manage;
+    private SpDashboardController controller;
+
+    @Before
+    public void before() {
+        actionsService = mock(ActionsService.class);
+        mailBox = mock(MailBox.class);
+        sab = mock(Sab.class);
+        manage = mock(Manage.class);
+        controller = new SpDashboardController(actionsService, mailBox, sab, manage, "admin", "secret");
+
+        when(manage.getIdentityProviders(Set.of("idp-1", "idp-2", "unknown"), false)).thenReturn(List.of(
+                new IdentityProvider("idp-1", "institution", "IdP 1", 1L),
+                new IdentityProvider("idp-2", "institution", "IdP 2", 2L)));
+        when(manage.getServiceProvider("sp", EntityType.saml20_sp, false)).thenReturn(Optional.of(
+                new ServiceProvider(ImmutableMap.of("entityid", "sp", "eid", 3L))));
+        when(sab.getSabEmailsForOrganization(anyString(), anyString())).thenReturn(Collections.emptyList());
+        when(actionsService.create(any(Action.class))).thenAnswer(invocation -> {
+            Action action = invocation.getArgument(0);
+            return action.unbuild().jiraKey("CXT-" + action.getIdpId()).build();
+        });
+    }
+
+    @Test
+    public void connectionRequestsReportStatusPerRequest() {
+        List<ServiceConnectionRequest> requests = requests("idp-1", "unknown", "idp-2");
+
+        ResponseEntity<List<Map<String, Object>>> response = controller.connectionRequests(requests, authenticatedRequest());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Map<String, Object>> results = response.getBody();
+        assertEquals(3, results.size());
+        assertEquals(200, results.get(0).get("status"));
+        assertEquals("CXT-idp-1", results.get(0).get("jiraKey"));
+        assertEquals(400, results.get(1).get("status"));
+        assertEquals("unknown", results.get(1).get("idpEntityId"));
+        assertEquals(200, results.get(2).get("status"));
+        assertEquals("CXT-idp-2", results.get(2).get("jiraKey"));
+
+        verify(manage, times(1)).getServiceProvider("sp", EntityType.saml20_sp, false);
+        verify(mailBox, times(2)).sendInviteMail(any(), any());
+    }
+
+    @Test
+    public void failedInviteIsReported() {
+        when(sab.getSabEmailsForOrganization(eq("idp-2"), anyString())).thenThrow(new IllegalStateException("SAB down"));
+
+        ResponseEntity<List<Map<String, Object>>> response =
+                controller.connectionRequests(requests("idp-1", "idp-2", "unknown"), authenticatedRequest());
+
+        List<Map<String, Object>> results = response.getBody();
+        assertEquals(200, results.get(0).get("status"));
+        assertEquals(500, results.get(1).get("status"));
+        assertEquals("SAB down", results.get(1).get("error"));
+    }
+
+    @Test
+    public void connectionRequestsRequireAuthentication() {
+        ResponseEntity<List<Map<String, Object>>> response =
+                controller.connectionRequests(requests("idp-1"), new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    private List<ServiceConnectionRequest> requests(String... idpEntityIds) {
+        List<Map<String, String>> requests = new ArrayList<>();
+        for (String idpEntityId : idpEntityIds) {
+            requests.add(ImmutableMap.of("idpEntityId", idpEntityId, "spEntityId", "sp", "typeMetaData", "saml20_sp",
+                    "ownName", "John Doe", "ownEmail", "john@example.org"));
+        }
+        return gson.fromJson(gson.toJson(requests), new TypeToken<List<ServiceConnectionRequest>>() {
+        }.getType());
+    }
+
+    private MockHttpServletRequest authenticatedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Basic " +
+                Base64.getEncoder().encodeToString("admin:secret".getBytes(StandardCharsets.UTF_8)));
+        return request;
+    }
+}
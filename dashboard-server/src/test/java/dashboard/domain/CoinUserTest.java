@@ -1,15 +1,19 @@
 package dashboard.domain;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import dashboard.control.EnrichJson;
 import dashboard.control.RestResponse;
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static dashboard.shibboleth.ShibbolethHeader.Shib_DisplayName;
 import static org.junit.Assert.*;
@@ -18,12 +22,8 @@ public class CoinUserTest {
 
     private CoinUser coinUser;
 
-    private Gson gson;
-
     @Before
     public void setUp() throws Exception {
-        gson = new Gson();
-
         coinUser = new CoinUser();
         coinUser.addAttribute(Shib_DisplayName, Arrays.asList("bar"));
         coinUser.addAuthority(new CoinAuthority(CoinAuthority.Authority.ROLE_DASHBOARD_ADMIN));
@@ -40,10 +40,39 @@ public class CoinUserTest {
     }
 
     @Test
-    public void testSerializeToJson() {
-        JsonElement json = gson.toJsonTree(RestResponse.of(Locale.ENGLISH, coinUser));
-        EnrichJson.forUser(true, coinUser).json(json).forPayload(coinUser);
-        assertNotNull(json);
+    public void testSerializeToJson() throws IOException {
+        StringWriter writer = new StringWriter();
+        EnrichJson.forUser(true, coinUser).write(RestResponse.of(Locale.ENGLISH, coinUser), writer);
+
+        JsonObject payload = JsonParser.parseString(writer.toString()).getAsJsonObject().getAsJsonObject("payload");
+        assertEquals("id", payload.getAsJsonArray("institutionIdps").get(0).getAsJsonObject().get("id").getAsString());
+    }
+
+    @Test
+    public void testSessionStateOnlyContainsIdpEntityIds() {
+        IdentityProvider idp = new IdentityProvider("id", "institutionId", "name", 1L);
+        coinUser.setIdp(idp);
+
+        CoinUser restored = SerializationUtils.clone(coinUser);
+        restored.restoreIdentityProviders(entityId -> Optional.of(idp).filter(provider -> provider.getId().equals(entityId)));
+
+        assertSame(idp, restored.getIdp());
+        assertEquals(1, restored.getInstitutionIdps().size());
+        assertSame(idp, restored.getInstitutionIdps().get(0));
+    }
+
+    @Test
+    public void unresolvedInstitutionIdpsAreRetried() {
+        IdentityProvider idp = new IdentityProvider("id", "institutionId", "name", 1L);
+        CoinUser restored = SerializationUtils.clone(coinUser);
+        AtomicBoolean available = new AtomicBoolean(false);
+        restored.restoreIdentityProviders(entityId -> available.get() ? Optional.of(idp) : Optional.empty());
+
+        assertTrue(restored.getInstitutionIdps().isEmpty());
+        available.set(true);
+        assertEquals(1, restored.getInstitutionIdps().size());
+        available.set(false);
+        assertEquals(1, restored.getInstitutionIdps().size());
     }
 
 }
@@ -15,17 +15,22 @@
  */
 package dashboard.domain;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link Provider}
@@ -93,4 +98,85 @@ public class ProviderTest {
 
         assertEquals(Arrays.asList(ContactPersonType.support, ContactPersonType.administrative, ContactPersonType.other), types);
     }
+
+    @Test
+    public void testCopyOnWrite() {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("eid", 1L);
+        metaData.put("entityid", "https://idp");
+        metaData.put("allowedall", "no");
+        metaData.put("allowedEntities", Collections.singletonList("https://sp"));
+        metaData.put("contacts:0:contactType", "support");
+        metaData.put("contacts:0:emailAddress", "support@example.com");
+
+        IdentityProvider identityProvider = new IdentityProvider(metaData);
+        IdentityProvider connected = identityProvider.withAllowedEntityId("https://other-sp");
+        IdentityProvider withoutContactPersons = identityProvider.withoutContactPersons();
+
+        assertEquals(Collections.singleton("https://sp"), identityProvider.getAllowedEntityIds());
+        assertEquals(2, connected.getAllowedEntityIds().size());
+        assertEquals(identityProvider.getContactPersons(), connected.getContactPersons());
+
+        assertEquals(1, identityProvider.getContactPersons().size());
+        assertTrue(withoutContactPersons.getContactPersons().isEmpty());
+        assertEquals(identityProvider.getAllowedEntityIds(), withoutContactPersons.getAllowedEntityIds());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCollectionsAreUnmodifiable() {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("eid", 1L);
+
+        new ServiceProvider(metaData).getNames().put("en", "name");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testArpIsUnmodifiable() {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("eid", 1L);
+        Map<String, List<String>> attributes = new HashMap<>();
+        attributes.put("urn:mace:dir:attribute-def:mail", new ArrayList<>(Collections.singletonList("*")));
+        metaData.put("attributes", attributes);
+
+        ServiceProvider serviceProvider = new ServiceProvider(metaData);
+        attributes.clear();
+        assertEquals(1, serviceProvider.getArp().getAttributes().size());
+
+        serviceProvider.getArp().getAttributes().get("urn:mace:dir:attribute-def:mail").add("other");
+    }
+
+    @Test
+    public void testCompactStorage() {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("eid", 1L);
+        metaData.put("entityid", "https://idp");
+        metaData.put("name:nl", "Naam");
+        metaData.put("name:pt", "Nome");
+        metaData.put("allowedall", "no");
+        metaData.put("allowedEntities", Arrays.asList("https://sp", "https://other-sp", "https://sp"));
+
+        IdentityProvider identityProvider = new IdentityProvider(metaData);
+        Map<String, String> names = identityProvider.getNames();
+        assertEquals(2, names.size());
+        assertEquals("Naam", names.get("nl"));
+        assertFalse(names.containsKey("en"));
+        assertEquals(Map.of("nl", "Naam", "pt", "Nome"), names);
+
+        assertEquals(new HashSet<>(Arrays.asList("https://sp", "https://other-sp")), identityProvider.getAllowedEntityIds());
+        assertTrue(identityProvider.getAllowedEntityIds().contains("https://other-sp"));
+        assertFalse(identityProvider.getAllowedEntityIds().contains("https://unknown-sp"));
+
+        IdentityProvider deserialized = SerializationUtils.clone(identityProvider);
+        assertEquals(names, deserialized.getNames());
+        assertEquals(identityProvider.getAllowedEntityIds(), deserialized.getAllowedEntityIds());
+    }
+
+    @Test
+    public void testUnsupportedLanguageIsIgnored() {
+        LocalizedStrings strings = new LocalizedStrings();
+        strings.set("de", "Name");
+        strings.set("en", "Name");
+
+        assertEquals(Map.of("en", "Name"), strings);
+    }
 }
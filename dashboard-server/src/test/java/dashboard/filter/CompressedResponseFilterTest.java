@@ -0,0 +1,100 @@
+package dashboard.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedResponseFilterTest {
+
+    private static final String BODY = "{\"payload\":[" + String.join(",", Collections.nCopies(500, "\"service\"")) + "]}";
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CompressedResponseFilter subject = new CompressedResponseFilter(1024 * 1024, 1024, meterRegistry);
+
+    @Test
+    public void compressedBodyIsCachedByETag() throws Exception {
+        MockHttpServletResponse first = filter("gzip, deflate, br", "\"1\"");
+        MockHttpServletResponse second = filter("gzip", "\"1\"");
+        MockHttpServletResponse other = filter("gzip", "\"2\"");
+
+        assertEquals("gzip", first.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/\"1\"", first.getHeader(HttpHeaders.ETAG));
+        assertEquals(BODY, gunzip(first.getContentAsByteArray()));
+        assertEquals(BODY, gunzip(second.getContentAsByteArray()));
+        assertEquals(BODY, gunzip(other.getContentAsByteArray()));
+        assertEquals(2, subject.cacheSize());
+        assertEquals(1.0 / 3, meterRegistry.get("dashboard.compressed.responses.hit.ratio").gauge().value(), 0.001);
+    }
+
+    @Test
+    public void plainBodyWithoutAcceptEncoding() throws Exception {
+        MockHttpServletResponse response = filter(null, "\"1\"");
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(BODY, response.getContentAsString());
+        assertEquals(0, subject.cacheSize());
+    }
+
+    @Test
+    public void plainBodyWithoutETag() throws Exception {
+        MockHttpServletResponse response = filter("gzip", null);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(BODY, response.getContentAsString());
+        assertEquals(0, subject.cacheSize());
+    }
+
+    @Test
+    public void acceptEncodingQualities() {
+        assertTrue(CompressedResponseFilter.acceptsGzip("gzip"));
+        assertTrue(CompressedResponseFilter.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(CompressedResponseFilter.acceptsGzip("br, *"));
+        assertFalse(CompressedResponseFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(CompressedResponseFilter.acceptsGzip("gzip; q=0.0, *"));
+        assertFalse(CompressedResponseFilter.acceptsGzip("*;q=0"));
+        assertFalse(CompressedResponseFilter.acceptsGzip("identity"));
+        assertFalse(CompressedResponseFilter.acceptsGzip(null));
+    }
+
+    private MockHttpServletResponse filter(String acceptEncoding, String eTag) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dashboard/api/services");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        subject.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                if (eTag != null) {
+                    resp.setHeader(HttpHeaders.ETAG, eTag);
+                }
+                resp.setContentType("application/json");
+                resp.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+        return response;
+    }
+
+    private String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
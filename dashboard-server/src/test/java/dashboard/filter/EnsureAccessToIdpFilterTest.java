@@ -1,23 +1,35 @@
 package dashboard.filter;
 
+import dashboard.control.RestDataFixture;
+import dashboard.domain.CoinAuthority;
+import dashboard.domain.CoinUser;
+import dashboard.manage.IdentityProviderCache;
 import dashboard.manage.Manage;
+import org.junit.After;
 import org.junit.Test;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.util.Optional;
 
+import static dashboard.control.Constants.HTTP_X_IDP_ENTITY_ID;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class EnsureAccessToIdpFilterTest {
     private Manage manage = mock(Manage.class);
-    private EnsureAccessToIdpFilter subject = new EnsureAccessToIdpFilter(manage);
+    private EnsureAccessToIdpFilter subject = new EnsureAccessToIdpFilter(new IdentityProviderCache(manage));
+
+    @After
+    public void after() {
+        SecurityContextHolder.clearContext();
+    }
 
     @Test
     public void doFilter() throws IOException, ServletException {
@@ -26,4 +38,42 @@ public class EnsureAccessToIdpFilterTest {
         subject.doFilter(new MockHttpServletRequest("GET", "/dashboard/api"), new MockHttpServletResponse(), chain);
         assertNotNull(chain.getRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void institutionIdpIsCheckedWithoutManage() throws IOException, ServletException {
+        SpringSecurityUtil.setAuthentication(RestDataFixture.coinUser("john", "idp"));
+
+        MockFilterChain chain = new MockFilterChain();
+        subject.doFilter(idpRequest("idp"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        verifyNoInteractions(manage);
+    }
+
+    @Test(expected = SecurityException.class)
+    public void unknownIdpIsDenied() throws IOException, ServletException {
+        SpringSecurityUtil.setAuthentication(RestDataFixture.coinUser("john", "idp"));
+
+        subject.doFilter(idpRequest("other-idp"), new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    @Test
+    public void superUserIdpIsLookedUpOnce() throws IOException, ServletException {
+        CoinUser superUser = RestDataFixture.coinUser("admin", "idp");
+        superUser.addAuthority(new CoinAuthority(CoinAuthority.Authority.ROLE_DASHBOARD_SUPER_USER));
+        SpringSecurityUtil.setAuthentication(superUser);
+        when(manage.getIdentityProvider("other-idp", false)).thenReturn(Optional.of(RestDataFixture.idp("other-idp")));
+
+        subject.doFilter(idpRequest("other-idp"), new MockHttpServletResponse(), new MockFilterChain());
+        subject.doFilter(idpRequest("other-idp"), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(manage, times(1)).getIdentityProvider("other-idp", false);
+    }
+
+    private MockHttpServletRequest idpRequest(String idpEntityId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dashboard/api/services");
+        request.setRequestURI("/dashboard/api/services");
+        request.addHeader(HTTP_X_IDP_ENTITY_ID, idpEntityId);
+        return request;
+    }
+}
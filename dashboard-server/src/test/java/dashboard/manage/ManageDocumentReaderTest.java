@@ -0,0 +1,47 @@
+package dashboard.manage;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ManageDocumentReaderTest {
+
+    @Test
+    public void testFlattenDocument() throws Exception {
+        String json = "[{\"_id\":\"1\",\"version\":2,\"data\":{" +
+                "\"entityid\":\"https://sp\",\"eid\":12,\"allowedall\":false,\"state\":\"prodaccepted\"," +
+                "\"revisionnote\":{\"nested\":true}," +
+                "\"metaDataFields\":{\"name:en\":\"Name\",\"coin:no_consent_required\":true}," +
+                "\"allowedEntities\":[{\"name\":\"https://idp\"},{\"name\":\"https://other-idp\",\"extra\":[1]}]," +
+                "\"arp\":{\"enabled\":true,\"attributes\":{\"urn:mace:dir:attribute-def:mail\":" +
+                "[{\"value\":\"*\",\"source\":\"sab\",\"motivation\":\"Mail\"}]}}}}]";
+
+        List<Map<String, Object>> documents = ManageDocumentReader.read(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Function.identity());
+
+        assertEquals(1, documents.size());
+        Map<String, Object> metadata = documents.get(0);
+        assertEquals("1", metadata.get("internalId"));
+        assertEquals("https://sp", metadata.get("entityid"));
+        assertEquals(12, metadata.get("eid"));
+        assertEquals(false, metadata.get("allowedall"));
+        assertEquals(2, metadata.get("revision"));
+        assertEquals("Name", metadata.get("name:en"));
+        assertEquals(true, metadata.get("coin:no_consent_required"));
+        assertEquals(Arrays.asList("https://idp", "https://other-idp"), metadata.get("allowedEntities"));
+        assertEquals(Collections.singletonMap("urn:mace:dir:attribute-def:mail", Collections.singletonList("*")),
+                metadata.get("attributes"));
+        assertEquals(Collections.singletonMap("urn:mace:dir:attribute-def:mail", "sab"), metadata.get("sources"));
+        assertFalse(metadata.containsKey("revisionnote"));
+        assertFalse(metadata.containsKey("version"));
+    }
+}
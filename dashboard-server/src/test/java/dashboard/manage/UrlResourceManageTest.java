@@ -14,6 +14,11 @@ import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class UrlResourceManageTest {
 
@@ -68,5 +73,41 @@ public class UrlResourceManageTest {
         assertEquals(EntityType.oidc10_rp, serviceProvider.getEntityType());
     }
 
+    @Test
+    public void metadataVersionFollowsRevisions() {
+        assertNull(subject.getMetadataVersion());
+
+        subject.refreshMetadataVersion();
+        String version = subject.getMetadataVersion();
+        assertNotNull(version);
+        assertEquals(version, subject.getMetadataVersion());
+
+        stubFor(post(urlEqualTo("/manage/api/internal/search/saml20_sp")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody("[{\"_id\": \"1\", \"version\": 2}]")));
+        subject.refreshMetadataVersion();
+
+        assertNotEquals(version, subject.getMetadataVersion());
+    }
+
+    @Test
+    public void deletedProvidersAreOnlyFoundInTheRevisionsWhenSearched() {
+        stubFor(post(urlEqualTo("/manage/api/internal/search/saml20_sp")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody("[]")));
+        stubFor(post(urlEqualTo("/manage/api/internal/search/saml20_idp")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody("[]")));
+        String spResponse = "[{\"_id\": \"1\", \"version\": 2, \"data\": {\"eid\": 1, \"entityid\": \"https://deleted.sp\", " +
+                "\"metaDataFields\": {}}}]";
+        stubFor(post(urlEqualTo("/manage/api/internal/search/saml20_sp_revision")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody(spResponse)));
+        String idpResponse = "[{\"_id\": \"2\", \"version\": 2, \"data\": {\"eid\": 2, \"entityid\": \"https://deleted.idp\", " +
+                "\"metaDataFields\": {}}}]";
+        stubFor(post(urlEqualTo("/manage/api/internal/search/saml20_idp_revision")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody(idpResponse)));
+
+        assertFalse(subject.getServiceProvider("https://deleted.sp", EntityType.saml20_sp, false).isPresent());
+        assertTrue(subject.getServiceProvider("https://deleted.sp", EntityType.saml20_sp, true).isPresent());
+        assertFalse(subject.getIdentityProvider("https://deleted.idp", false).isPresent());
+        assertTrue(subject.getIdentityProvider("https://deleted.idp", true).isPresent());
+    }
 
 }
@@ -0,0 +1,144 @@
+package dashboard.pdp;
+
+import dashboard.domain.CoinUser;
+import dashboard.domain.IdentityProvider;
+import dashboard.domain.Policy;
+import dashboard.domain.Policy.PolicyBuilder;
+import dashboard.filter.SpringSecurityUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingPdpServiceTest {
+
+    private PdpService pdpService;
+    private CachingPdpService cachingPdpService;
+
+    @Before
+    public void before() {
+        pdpService = mock(PdpService.class);
+        cachingPdpService = new CachingPdpService(pdpService, mock(PdpAvailabilityProbe.class),
+                mock(PdpAttributeCatalog.class), 60, new SimpleMeterRegistry());
+        authenticate("idp-1");
+    }
+
+    @After
+    public void after() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void policiesAreCachedPerIdp() {
+        when(pdpService.policies()).thenReturn(List.of(policy(1L, "first")));
+
+        cachingPdpService.policies();
+        cachingPdpService.policies();
+        authenticate("idp-2");
+        cachingPdpService.policies();
+
+        verify(pdpService, times(2)).policies();
+    }
+
+    @Test
+    public void createInvalidatesPolicies() {
+        Policy created = policy(2L, "second");
+        // the PDP adds the revisions and allowed actions of the overview, which the response of a create lacks
+        Policy listed = PolicyBuilder.of(created).withNumberOfRevisions(1).build();
+        when(pdpService.policies()).thenReturn(List.of(policy(1L, "first"))).thenReturn(List.of(policy(1L, "first"), listed));
+        when(pdpService.create(created)).thenReturn(created);
+        when(pdpService.policy(2L)).thenReturn(listed);
+
+        cachingPdpService.policies();
+        cachingPdpService.create(created);
+
+        assertEquals(List.of(1L, 2L), ids(cachingPdpService.policies()));
+        assertEquals(1, cachingPdpService.policies().get(1).getNumberOfRevisions());
+        assertEquals(listed, cachingPdpService.policy(2L));
+        verify(pdpService, times(2)).policies();
+        verify(pdpService, times(1)).policy(2L);
+    }
+
+    @Test
+    public void updateInvalidatesPoliciesAndRevisions() {
+        Policy policy = policy(1L, "first");
+        when(pdpService.policies()).thenReturn(List.of(policy));
+        when(pdpService.revisions(1L)).thenReturn(List.of(policy));
+        when(pdpService.update(policy)).thenReturn(policy);
+
+        cachingPdpService.policies();
+        cachingPdpService.revisions(1L);
+        authenticate("idp-2");
+        cachingPdpService.policies();
+        cachingPdpService.update(policy);
+        cachingPdpService.policies();
+        authenticate("idp-1");
+        cachingPdpService.policies();
+        cachingPdpService.revisions(1L);
+
+        verify(pdpService, times(4)).policies();
+        verify(pdpService, times(2)).revisions(1L);
+    }
+
+    @Test
+    public void deleteRemovesPolicy() {
+        when(pdpService.policies()).thenReturn(List.of(policy(1L, "first"), policy(2L, "second")));
+
+        cachingPdpService.policies();
+        cachingPdpService.delete(1L);
+
+        assertEquals(List.of(2L), ids(cachingPdpService.policies()));
+        verify(pdpService, times(1)).policies();
+    }
+
+    @Test
+    public void policiesLoadedDuringAnUpdateAreNotCached() {
+        Policy policy = policy(1L, "first");
+        when(pdpService.update(policy)).thenReturn(policy);
+        when(pdpService.policies()).thenAnswer(invocation -> {
+            // a policy is updated on this node while the policies are loaded
+            authenticate("idp-2");
+            cachingPdpService.update(policy);
+            authenticate("idp-1");
+            return List.of(policy(1L, "stale"));
+        }).thenReturn(List.of(policy));
+
+        cachingPdpService.policies();
+        cachingPdpService.policies();
+        cachingPdpService.policies();
+
+        verify(pdpService, times(2)).policies();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failedLoadIsRethrown() {
+        when(pdpService.policy(1L)).thenThrow(new IllegalStateException("PDP down"));
+
+        cachingPdpService.policy(1L);
+    }
+
+    private List<Long> ids(List<Policy> policies) {
+        return policies.stream().map(Policy::getId).collect(Collectors.toList());
+    }
+
+    private Policy policy(Long id, String name) {
+        return PolicyBuilder.of(new Policy(name, name)).withId(id).build();
+    }
+
+    private void authenticate(String idp) {
+        CoinUser coinUser = new CoinUser();
+        coinUser.setUid("user-id");
+        coinUser.setIdp(new IdentityProvider(idp, "institution-id", "idp-name", 1L));
+        SpringSecurityUtil.setAuthentication(coinUser);
+    }
+}
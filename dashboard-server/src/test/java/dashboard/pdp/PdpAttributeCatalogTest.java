@@ -0,0 +1,48 @@
+package dashboard.pdp;
+
+import dashboard.domain.Policy.Attribute;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+
+public class PdpAttributeCatalogTest {
+
+    private PdpAttributeCatalog catalog;
+
+    @After
+    public void after() {
+        catalog.close();
+    }
+
+    @Test
+    public void lastKnownAttributesAreKeptWhenPdpIsUnreachable() {
+        AtomicInteger loads = new AtomicInteger();
+        catalog = new PdpAttributeCatalog(() -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("PDP down");
+            }
+            return List.of(new Attribute("urn:mace:dir:attribute-def:eduPersonAffiliation", "Edu person affiliation"));
+        }, 1);
+
+        await().atMost(5, SECONDS).until(() -> loads.get() > 1);
+        List<Attribute> attributes = catalog.attributes();
+
+        assertEquals(1, attributes.size());
+        assertEquals("urn:mace:dir:attribute-def:eduPersonAffiliation", attributes.get(0).getName());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void attributesAreRequestedWhenNeverLoaded() {
+        catalog = new PdpAttributeCatalog(() -> {
+            throw new IllegalStateException("PDP down");
+        }, 60);
+
+        catalog.attributes();
+    }
+}
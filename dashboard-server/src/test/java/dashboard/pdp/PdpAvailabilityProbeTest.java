@@ -0,0 +1,44 @@
+package dashboard.pdp;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+
+public class PdpAvailabilityProbeTest {
+
+    private PdpAvailabilityProbe probe;
+
+    @After
+    public void after() {
+        probe.close();
+    }
+
+    @Test
+    public void availabilityFollowsProbe() {
+        AtomicBoolean available = new AtomicBoolean(true);
+        probe = new PdpAvailabilityProbe(available::get, 1, 0);
+
+        await().atMost(5, SECONDS).until(probe::isAvailable);
+        assertEquals(Status.UP, probe.health().getStatus());
+
+        available.set(false);
+        await().atMost(5, SECONDS).until(() -> !probe.isAvailable());
+        assertEquals(Status.DOWN, probe.health().getStatus());
+    }
+
+    @Test
+    public void failingProbeIsUnavailable() {
+        probe = new PdpAvailabilityProbe(() -> {
+            throw new IllegalStateException("PDP down");
+        }, 1, 0);
+
+        await().atMost(5, SECONDS).until(() -> probe.health().getStatus().equals(Status.DOWN));
+        assertEquals(false, probe.isAvailable());
+    }
+}
@@ -5,20 +5,34 @@ import com.google.common.collect.ImmutableMap;
 import dashboard.domain.*;
 import dashboard.manage.EntityType;
 import dashboard.manage.Manage;
+import dashboard.service.impl.JiraWorkflow.Step;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -33,9 +47,42 @@ public class ActionsServiceImplTest {
     @Mock
     private Manage manageMock;
 
+    @Mock
+    private JiraOutbox jiraOutbox;
+
+    @Test
+    public void createLinkInviteSubmitsWorkflow() {
+        Action action = Action.builder().idpId("idp").spId("sp").type(Action.Type.LINKINVITE).build();
+        when(jiraClientMock.create(action)).thenReturn("CXT-1");
+
+        service.create(action);
+
+        verify(jiraOutbox).submit("CXT-1", Arrays.asList(
+                Step.transition(JiraClient.START_PROGRESS),
+                Step.transition(JiraClient.INPUT_NEEDED, "Waiting for approval of SCV.")));
+    }
+
+    @Test
+    public void approveInviteRequestTransitionsToResolved() {
+        service.approveInviteRequest("CXT-1", "Approved", true);
+
+        verify(jiraOutbox).submit("CXT-1", Arrays.asList(
+                Step.transition(JiraClient.RESOLVED),
+                Step.comment("Approved")));
+    }
+
+    @Test
+    public void approveInviteRequestAnswersAutomatically() {
+        service.approveInviteRequest("CXT-1", "Approved", false);
+
+        verify(jiraOutbox).submit("CXT-1", Arrays.asList(
+                Step.transition(JiraClient.ANSWER_AUTOMATICALLY),
+                Step.comment("Approved")));
+    }
+
     @Test
     public void forBackwardCompatibilityShouldFillUserFromBody() {
-        when(manageMock.getIdentityProvider("idp", true)).thenReturn(Optional.of(new IdentityProvider("idp",
+        when(manageMock.getIdentityProviders(Set.of("idp"), true)).thenReturn(List.of(new IdentityProvider("idp",
                 "idp-institution", "idp-name", 1L)));
         List<Action> issues = ImmutableList.of(Action.builder()
                 .idpId("idp")
@@ -52,10 +99,8 @@ public class ActionsServiceImplTest {
                         "test").build());
         JiraResponse result = new JiraResponse(issues, 15, 0, 20);
 
-        when(manageMock.getServiceProvider("sp", EntityType.saml20_sp, true)).thenReturn(Optional.of(new ServiceProvider
+        when(manageMock.getServiceProviders(Set.of("sp"), EntityType.saml20_sp, false)).thenReturn(List.of(new ServiceProvider
                 (ImmutableMap.of("entityid", "sp", "eid", 1L))));
-        when(manageMock.getServiceProvider("sp", EntityType.oidc10_rp, true)).thenReturn(Optional.empty());
-        when(manageMock.getServiceProvider("sp", EntityType.single_tenant_template, true)).thenReturn(Optional.empty());
 
         when(jiraClientMock.searchTasks(anyString(), any(JiraFilter.class))).thenReturn(result);
 
@@ -65,6 +110,106 @@ public class ActionsServiceImplTest {
         assertEquals(1, actions.size());
         assertEquals("Teun Fransen", actions.get(0).getUserName());
         assertEquals("Teun.Fransen@surfnet.nl", actions.get(0).getUserEmail());
+        assertEquals("idp-name", actions.get(0).getIdpName());
+        assertEquals(Long.valueOf(1L), actions.get(0).getSpEid());
+    }
+
+    @Test
+    public void enrichmentOfResolvedTicketsIsCached() {
+        ZonedDateTime updated = ZonedDateTime.now();
+        Action resolved = Action.builder().jiraKey("CXT-1").idpId("idp").spId("sp").body("Applicant name: John")
+                .resolution("Fixed").updateDate(updated).build();
+        Action open = Action.builder().jiraKey("CXT-2").idpId("idp").spId("sp-2").body("").updateDate(updated).build();
+        when(jiraClientMock.searchTasks(anyString(), any(JiraFilter.class)))
+                .thenAnswer(invocation -> new JiraResponse(List.of(resolved, open), 2, 0, 20));
+
+        service.searchTasks("idp", new JiraFilter());
+        List<Action> actions = service.searchTasks("idp", new JiraFilter()).getIssues();
+
+        assertEquals(List.of("CXT-1", "CXT-2"), actions.stream().map(Action::getJiraKey).collect(Collectors.toList()));
+        assertEquals("John", actions.get(0).getUserName());
+        assertEquals("unknown", actions.get(0).getUserEmail());
+        verify(manageMock, times(2)).getIdentityProviders(Set.of("idp"), true);
+        verify(manageMock).getServiceProviders(Set.of("sp", "sp-2"), EntityType.saml20_sp, false);
+        verify(manageMock).getServiceProviders(Set.of("sp-2"), EntityType.saml20_sp, false);
+        verify(manageMock, never()).getIdentityProvider(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void onlyMissingProvidersAreSearchedInTheRevisions() {
+        Action rp = Action.builder().jiraKey("CXT-1").idpId("idp").spId("rp").body("").build();
+        Action deleted = Action.builder().jiraKey("CXT-2").idpId("idp").spId("deleted").body("").build();
+        when(jiraClientMock.searchTasks(anyString(), any(JiraFilter.class)))
+                .thenReturn(new JiraResponse(List.of(rp, deleted), 2, 0, 20));
+        when(manageMock.getServiceProviders(Set.of("rp", "deleted"), EntityType.oidc10_rp, false))
+                .thenReturn(List.of(new ServiceProvider(ImmutableMap.of("entityid", "rp", "eid", 1L), EntityType.oidc10_rp)));
+        when(manageMock.getDeletedServiceProviders(Set.of("deleted"), EntityType.saml20_sp))
+                .thenReturn(List.of(new ServiceProvider(ImmutableMap.of("entityid", "deleted", "eid", 2L), EntityType.saml20_sp)));
+
+        List<Action> actions = service.searchTasks("idp", new JiraFilter()).getIssues();
+
+        assertEquals(Long.valueOf(1L), actions.get(0).getSpEid());
+        assertEquals(Long.valueOf(2L), actions.get(1).getSpEid());
+        verify(manageMock).getServiceProviders(Set.of("rp", "deleted"), EntityType.saml20_sp, false);
+        verify(manageMock).getServiceProviders(Set.of("rp", "deleted"), EntityType.single_tenant_template, false);
+        verify(manageMock).getDeletedServiceProviders(Set.of("deleted"), EntityType.saml20_sp);
+        verify(manageMock, never()).getServiceProviders(anyCollection(), any(EntityType.class), eq(true));
+    }
+
+    @Test
+    public void allTasksFetchesAllPagesInOrder() {
+        int total = 250;
+        when(jiraClientMock.searchTasksOrFail(eq("idp"), any(JiraFilter.class))).thenAnswer(invocation -> {
+            JiraFilter filter = invocation.getArgument(1);
+            List<Action> issues = IntStream.range(filter.getStartAt(), Math.min(filter.getStartAt() + filter.getMaxResults(), total))
+                    .mapToObj(i -> Action.builder().jiraKey("CXT-" + i).idpId("idp").spId("sp").body("").build())
+                    .collect(Collectors.toList());
+            return new JiraResponse(issues, total, filter.getStartAt(), filter.getMaxResults());
+        });
+
+        List<String> keys = new ArrayList<>();
+        service.allTasks("idp", new JiraFilter(), action -> keys.add(action.getJiraKey()));
+
+        assertEquals(total, keys.size());
+        assertEquals(IntStream.range(0, total).mapToObj(i -> "CXT-" + i).collect(Collectors.toList()), keys);
+        verify(jiraClientMock, times(3)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+    }
+
+    @Test
+    public void allTasksFollowsPageSizeOfJira() {
+        int total = 120;
+        int maxResults = 50;
+        when(jiraClientMock.searchTasksOrFail(eq("idp"), any(JiraFilter.class))).thenAnswer(invocation -> {
+            JiraFilter filter = invocation.getArgument(1);
+            List<Action> issues = IntStream.range(filter.getStartAt(), Math.min(filter.getStartAt() + maxResults, total))
+                    .mapToObj(i -> Action.builder().jiraKey("CXT-" + i).idpId("idp").spId("sp").body("").build())
+                    .collect(Collectors.toList());
+            return new JiraResponse(issues, total, filter.getStartAt(), maxResults);
+        });
+
+        List<String> keys = new ArrayList<>();
+        service.allTasks("idp", new JiraFilter(), action -> keys.add(action.getJiraKey()));
+
+        assertEquals(IntStream.range(0, total).mapToObj(i -> "CXT-" + i).collect(Collectors.toList()), keys);
+        verify(jiraClientMock, times(3)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+    }
+
+    @Test(expected = CompletionException.class)
+    public void allTasksAbortsOnFailedPage() {
+        int total = 250;
+        when(jiraClientMock.searchTasksOrFail(eq("idp"), any(JiraFilter.class))).thenAnswer(invocation -> {
+            JiraFilter filter = invocation.getArgument(1);
+            if (filter.getStartAt() > 0) {
+                throw new IllegalStateException("Jira down");
+            }
+            List<Action> issues = IntStream.range(0, filter.getMaxResults())
+                    .mapToObj(i -> Action.builder().jiraKey("CXT-" + i).idpId("idp").spId("sp").body("").build())
+                    .collect(Collectors.toList());
+            return new JiraResponse(issues, total, filter.getStartAt(), filter.getMaxResults());
+        });
+
+        service.allTasks("idp", new JiraFilter(), action -> {
+        });
     }
 
     @Test
@@ -0,0 +1,134 @@
+package dashboard.service.impl;
+
+import dashboard.domain.Action;
+import dashboard.domain.JiraFilter;
+import dashboard.domain.JiraResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingJiraClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JiraClient delegate;
+    private CachingJiraClient jiraClient;
+
+    @Before
+    public void before() {
+        delegate = mock(JiraClient.class);
+        when(delegate.searchTasksOrFail(anyString(), any(JiraFilter.class))).thenAnswer(invocation ->
+                new JiraResponse(Collections.singletonList(Action.builder()
+                        .jiraKey("CXT-" + invocation.getArgument(0))
+                        .idpId(invocation.getArgument(0))
+                        .build()), 1, 0, 20));
+        jiraClient = new CachingJiraClient(delegate, 60, meterRegistry);
+    }
+
+    @Test
+    public void searchesAreCachedPerIdpAndFilter() {
+        jiraClient.searchTasks("idp", filter("To Do", "Awaiting Input"));
+        jiraClient.searchTasks("idp", filter("Awaiting Input", "To Do"));
+        jiraClient.searchTasks("other-idp", filter("To Do", "Awaiting Input"));
+
+        verify(delegate, times(1)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+        verify(delegate, times(1)).searchTasksOrFail(eq("other-idp"), any(JiraFilter.class));
+        assertEquals(1D, meterRegistry.get("dashboard.jira.search.cache.hits").functionCounter().count(), 0D);
+        assertEquals(2D, meterRegistry.get("dashboard.jira.search.cache.misses").functionCounter().count(), 0D);
+    }
+
+    @Test
+    public void changesInvalidateTheSearchesOfTheIdp() {
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.searchTasks("other-idp", filter());
+
+        jiraClient.transition("CXT-idp", "1", Optional.empty(), Optional.empty());
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.comment("CXT-idp", "comment");
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.searchTasks("other-idp", filter());
+
+        verify(delegate, times(3)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+        verify(delegate, times(1)).searchTasksOrFail(eq("other-idp"), any(JiraFilter.class));
+    }
+
+    @Test
+    public void searchRacingAnInvalidationIsNotCached() {
+        when(delegate.create(any(Action.class))).thenReturn("CXT-1");
+        when(delegate.searchTasksOrFail(eq("idp"), any(JiraFilter.class))).thenAnswer(invocation -> {
+            // a ticket of the IdP is created while the search is in flight
+            jiraClient.create(Action.builder().idpId("idp").build());
+            return new JiraResponse(Collections.emptyList(), 0, 0, 20);
+        });
+
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.searchTasks("idp", filter());
+
+        verify(delegate, times(2)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+    }
+
+    @Test
+    public void failedSearchIsNotCached() {
+        when(delegate.searchTasksOrFail(eq("idp"), any(JiraFilter.class)))
+                .thenThrow(new IllegalStateException("Jira down"))
+                .thenReturn(new JiraResponse(Collections.emptyList(), 0, 0, 20));
+
+        assertEquals(0, jiraClient.searchTasks("idp", filter()).getIssues().size());
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.searchTasks("idp", filter());
+
+        verify(delegate, times(2)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+    }
+
+    @Test
+    public void createInvalidatesTheSearchesOfTheIdp() {
+        when(delegate.create(any(Action.class))).thenReturn("CXT-1");
+        jiraClient.searchTasks("idp", filter());
+
+        jiraClient.create(Action.builder().idpId("idp").build());
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.updateOptionalMessage("CXT-1", "message");
+        jiraClient.searchTasks("idp", filter());
+
+        verify(delegate, times(3)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+    }
+
+    @Test
+    public void changeOfUnknownTicketInvalidatesAllSearches() {
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.searchTasks("other-idp", filter());
+
+        jiraClient.comment("CXT-unknown", "comment");
+        jiraClient.searchTasks("idp", filter());
+        jiraClient.searchTasks("other-idp", filter());
+
+        verify(delegate, times(2)).searchTasksOrFail(eq("idp"), any(JiraFilter.class));
+        verify(delegate, times(2)).searchTasksOrFail(eq("other-idp"), any(JiraFilter.class));
+    }
+
+    @Test
+    public void cachedResponseIsNotShared() {
+        JiraResponse response = jiraClient.searchTasks("idp", filter());
+        response.setIssues(Collections.emptyList());
+
+        assertEquals(1, jiraClient.searchTasks("idp", filter()).getIssues().size());
+    }
+
+    private JiraFilter filter(String... statuses) {
+        JiraFilter jiraFilter = new JiraFilter();
+        jiraFilter.setStatuses(Arrays.asList(statuses));
+        return jiraFilter;
+    }
+}
@@ -13,10 +13,13 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 public class JiraClientImplTest {
 
@@ -53,6 +56,91 @@ public class JiraClientImplTest {
         assertEquals(1l, count);
     }
 
+    @Test
+    public void searchResponse() throws IOException {
+        JiraResponse response = jiraClient.searchResponse(new ClassPathResource("jira/mock_issues.json").getInputStream());
+
+        assertEquals(115, response.getTotal());
+        assertEquals(25, response.getStartAt());
+        assertEquals(20, response.getIssues().size());
+        Action action = response.getIssues().get(0);
+        assertEquals("CXT-27874", action.getJiraKey());
+        assertEquals(Action.Type.LINKREQUEST, action.getType());
+        assertEquals("", action.getIdpId());
+        assertEquals("https://welcome.pilot.lifescienceid.org/metadata/backend.xml", action.getSpId());
+        assertNotNull(action.getRequestDate());
+    }
+
+    @Test
+    public void transitionsAreCachedPerIssueTypeAndStatus() throws IOException {
+        stubTasks();
+        stubFor(get(urlPathEqualTo("/issue/CXT-22795/transitions")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody(transitions("31"))));
+        stubFor(post(urlPathEqualTo("/issue/CXT-22795/transitions")).willReturn(aResponse().withStatus(204)));
+
+        jiraClient.searchTasks("https://mock-idp", new JiraFilter());
+        assertEquals("31", jiraClient.validTransitions("CXT-22795").get(JiraClient.INPUT_NEEDED));
+        assertEquals("31", jiraClient.validTransitions("CXT-22795").get(JiraClient.INPUT_NEEDED));
+        verify(1, getRequestedFor(urlPathEqualTo("/issue/CXT-22795/transitions")));
+
+        jiraClient.transition("CXT-22795", "31", Optional.empty(), Optional.empty());
+        // a status of which the transitions are not known yet
+        jiraClient.validTransitions("CXT-22795");
+        verify(2, getRequestedFor(urlPathEqualTo("/issue/CXT-22795/transitions")));
+    }
+
+    @Test
+    public void transitionFallsBackToLiveLookup() throws IOException {
+        stubTasks();
+        stubFor(get(urlPathEqualTo("/issue/CXT-22795/transitions")).inScenario("moved").whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json").withBody(transitions("31"))));
+        stubFor(post(urlPathEqualTo("/issue/CXT-22795/transitions")).withRequestBody(matchingJsonPath("$.transition.id", equalTo("31")))
+                .inScenario("moved").willSetStateTo("moved")
+                .willReturn(aResponse().withStatus(400)));
+        stubFor(get(urlPathEqualTo("/issue/CXT-22795/transitions")).inScenario("moved").whenScenarioStateIs("moved")
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json").withBody(transitions("41"))));
+        stubFor(post(urlPathEqualTo("/issue/CXT-22795/transitions")).withRequestBody(matchingJsonPath("$.transition.id", equalTo("41")))
+                .willReturn(aResponse().withStatus(204)));
+
+        jiraClient.searchTasks("https://mock-idp", new JiraFilter());
+        String transitionId = jiraClient.validTransitions("CXT-22795").get(JiraClient.INPUT_NEEDED);
+        jiraClient.transition("CXT-22795", transitionId, Optional.empty(), Optional.empty());
+
+        verify(postRequestedFor(urlPathEqualTo("/issue/CXT-22795/transitions")).withRequestBody(matchingJsonPath("$.transition.id", equalTo("41"))));
+    }
+
+    @Test
+    public void missingTransitionIsLookedUpLive() throws IOException {
+        stubTasks();
+        stubFor(get(urlPathEqualTo("/issue/CXT-22795/transitions")).inScenario("moved").whenScenarioStateIs(STARTED)
+                .willSetStateTo("moved")
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json").withBody(transitions("31"))));
+        stubFor(get(urlPathEqualTo("/issue/CXT-22795/transitions")).inScenario("moved").whenScenarioStateIs("moved")
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"transitions\":[{\"id\":\"51\",\"name\":\"To Resolved\",\"to\":{\"name\":\"Resolved\"}}]}")));
+
+        jiraClient.searchTasks("https://mock-idp", new JiraFilter());
+        assertEquals(Optional.of("31"), jiraClient.transitionId("CXT-22795", JiraClient.INPUT_NEEDED));
+        assertEquals(Optional.of("31"), jiraClient.transitionId("CXT-22795", JiraClient.INPUT_NEEDED));
+        // the ticket was moved in Jira, the cached transitions of its old status miss the transition
+        assertEquals(Optional.of("51"), jiraClient.transitionId("CXT-22795", JiraClient.RESOLVED));
+        verify(2, getRequestedFor(urlPathEqualTo("/issue/CXT-22795/transitions")));
+    }
+
+    private void stubTasks() throws IOException {
+        String jiraResponse = IOUtils.toString(new ClassPathResource("jira-json/tasks.json").getInputStream(), Charset.defaultCharset());
+        stubFor(post(urlPathEqualTo("/search")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody(jiraResponse)));
+    }
+
+    private String transitions(String inputNeededId) {
+        return "{\"transitions\":[{\"id\":\"" + inputNeededId + "\",\"name\":\"Input Needed\",\"to\":{\"name\":\"Awaiting Input\"}}]}";
+    }
+
     @Test
     public void actionToIssueIdentifier() {
         List<String> identifiers = Arrays.asList(Action.Type.values()).stream().map(type -> jiraClient.actionToIssueIdentifier(type)).collect(toList());
@@ -0,0 +1,211 @@
+package dashboard.service.impl;
+
+import dashboard.service.impl.JiraWorkflow.Step;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JiraOutboxTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JiraClient jiraClient;
+    private File directory;
+    private JiraOutbox outbox;
+
+    @Before
+    public void before() throws IOException {
+        jiraClient = mock(JiraClient.class);
+        Map<String, String> transitions = Map.of(JiraClient.START_PROGRESS, "11", JiraClient.INPUT_NEEDED, "21");
+        when(jiraClient.transitionId(anyString(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(transitions.get(invocation.getArgument(1, String.class))));
+        directory = temporaryFolder.newFolder("outbox");
+    }
+
+    @After
+    public void after() {
+        outbox.close();
+    }
+
+    @Test
+    public void stepsAreExecutedInOrder() throws IOException {
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+        outbox.submit("CXT-1", Arrays.asList(
+                Step.transition(JiraClient.START_PROGRESS),
+                Step.transition(JiraClient.INPUT_NEEDED, "Waiting"),
+                Step.comment("Done")));
+
+        await().atMost(5, SECONDS).until(() -> pendingWorkflows() == 0);
+        verify(jiraClient).transition("CXT-1", "11", Optional.empty(), Optional.empty());
+        verify(jiraClient).transition("CXT-1", "21", Optional.empty(), Optional.of("Waiting"));
+        verify(jiraClient).comment("CXT-1", "Done");
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void invalidTransitionIsRetried() throws IOException {
+        when(jiraClient.transitionId("CXT-1", JiraClient.RESOLVED))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of("31"));
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+        outbox.submit("CXT-1", Arrays.asList(Step.transition(JiraClient.RESOLVED), Step.comment("Done")));
+
+        await().atMost(5, SECONDS).until(() -> pendingWorkflows() == 0);
+        verify(jiraClient).transition("CXT-1", "31", Optional.empty(), Optional.empty());
+        verify(jiraClient).comment("CXT-1", "Done");
+        assertEquals(1D, meterRegistry.get("dashboard.jira.outbox.invalid.transitions").counter().count(), 0D);
+    }
+
+    @Test
+    public void failedStepIsRetried() throws IOException {
+        doThrow(new IllegalStateException("Jira down")).doNothing()
+                .when(jiraClient).transition(eq("CXT-1"), eq("21"), any(), any());
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+        outbox.submit("CXT-1", Arrays.asList(
+                Step.transition(JiraClient.START_PROGRESS),
+                Step.transition(JiraClient.INPUT_NEEDED)));
+
+        await().atMost(5, SECONDS).until(() -> pendingWorkflows() == 0);
+        verify(jiraClient, times(1)).transition("CXT-1", "11", Optional.empty(), Optional.empty());
+        verify(jiraClient, times(2)).transition("CXT-1", "21", Optional.empty(), Optional.empty());
+        assertEquals(1D, meterRegistry.get("dashboard.jira.outbox.failures").counter().count(), 0D);
+    }
+
+    @Test
+    public void journaledWorkflowIsRecovered() throws IOException {
+        String journal = "{\"id\":\"1\",\"jiraKey\":\"CXT-2\",\"steps\":[{\"comment\":\"First\"},{\"comment\":\"Second\"}]," +
+                "\"nextStep\":1,\"attempts\":1,\"created\":0}";
+        Files.write(new File(directory, "1.json").toPath(), journal.getBytes(StandardCharsets.UTF_8));
+
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+
+        await().atMost(5, SECONDS).until(() -> directory.list().length == 0);
+        verify(jiraClient, never()).comment("CXT-2", "First");
+        verify(jiraClient).comment("CXT-2", "Second");
+    }
+
+    @Test
+    public void inFlightCommentOnTicketIsNotAddedAgain() throws IOException {
+        when(jiraClient.comments("CXT-2")).thenReturn(List.of("First"));
+        String journal = "{\"id\":\"1\",\"jiraKey\":\"CXT-2\",\"steps\":[{\"comment\":\"First\"},{\"comment\":\"Second\"}]," +
+                "\"nextStep\":0,\"inFlight\":true,\"attempts\":0,\"created\":0}";
+        Files.write(new File(directory, "1.json").toPath(), journal.getBytes(StandardCharsets.UTF_8));
+
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+
+        await().atMost(5, SECONDS).until(() -> directory.list().length == 0);
+        verify(jiraClient, never()).comment("CXT-2", "First");
+        verify(jiraClient).comment("CXT-2", "Second");
+        assertEquals(1D, meterRegistry.get("dashboard.jira.outbox.replayed.steps").counter().count(), 0D);
+    }
+
+    @Test
+    public void inFlightTransitionNoLongerValidIsTakenAsExecuted() throws IOException {
+        String journal = "{\"id\":\"1\",\"jiraKey\":\"CXT-2\",\"steps\":[{\"transition\":\"To Resolved\"},{\"comment\":\"Done\"}]," +
+                "\"nextStep\":0,\"inFlight\":true,\"attempts\":0,\"created\":0}";
+        Files.write(new File(directory, "1.json").toPath(), journal.getBytes(StandardCharsets.UTF_8));
+
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+
+        await().atMost(5, SECONDS).until(() -> directory.list().length == 0);
+        verify(jiraClient, never()).transition(anyString(), any(), any(), any());
+        verify(jiraClient).comment("CXT-2", "Done");
+        assertEquals(0D, meterRegistry.get("dashboard.jira.outbox.invalid.transitions").counter().count(), 0D);
+    }
+
+    @Test
+    public void workflowsOfTicketAreExecutedInOrder() throws IOException {
+        doThrow(new IllegalStateException("Jira down")).doNothing()
+                .when(jiraClient).transition(eq("CXT-1"), eq("11"), any(), any());
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+        outbox.submit("CXT-1", Arrays.asList(Step.transition(JiraClient.START_PROGRESS)));
+        outbox.submit("CXT-1", Arrays.asList(Step.comment("Second")));
+
+        await().atMost(5, SECONDS).until(() -> pendingWorkflows() == 0);
+        InOrder inOrder = inOrder(jiraClient);
+        inOrder.verify(jiraClient, times(2)).transition("CXT-1", "11", Optional.empty(), Optional.empty());
+        inOrder.verify(jiraClient).comment("CXT-1", "Second");
+    }
+
+    @Test
+    public void resolvedTicketIsCommented() throws IOException {
+        AtomicReference<String> status = statusAwareTransitions("CXT-1");
+        outbox = new JiraOutbox(jiraClient, directory, 1, 5, meterRegistry);
+        outbox.submit("CXT-1", Arrays.asList(Step.transition(JiraClient.RESOLVED), Step.comment("Approved")));
+
+        await().atMost(5, SECONDS).until(() -> pendingWorkflows() == 0);
+        assertEquals("Resolved", status.get());
+        verify(jiraClient).comment("CXT-1", "Approved");
+        assertEquals(0D, meterRegistry.get("dashboard.jira.outbox.invalid.transitions").counter().count(), 0D);
+    }
+
+    @Test
+    public void failingWorkflowIsMovedToDeadLetters() throws IOException {
+        statusAwareTransitions("CXT-1");
+        outbox = new JiraOutbox(jiraClient, directory, 0, 2, meterRegistry);
+        String id = outbox.submit("CXT-1", Arrays.asList(
+                Step.transition(JiraClient.RESOLVED),
+                Step.comment("Approved"),
+                Step.transition(JiraClient.RESOLVED)));
+        outbox.submit("CXT-1", Arrays.asList(Step.comment("Next")));
+
+        await().atMost(5, SECONDS).until(() -> pendingWorkflows() == 0);
+        verify(jiraClient).comment("CXT-1", "Approved");
+        verify(jiraClient).comment("CXT-1", "Next");
+        assertTrue(new File(directory, "dead-letter/" + id + ".json").exists());
+        assertFalse(new File(directory, id + ".json").exists());
+        assertEquals(1D, meterRegistry.get("dashboard.jira.outbox.dead.letters").counter().count(), 0D);
+        assertEquals(2D, meterRegistry.get("dashboard.jira.outbox.invalid.transitions").counter().count(), 0D);
+    }
+
+    /*
+     * Like Jira, a transition to Resolved is only valid as long as the ticket is not resolved
+     */
+    private AtomicReference<String> statusAwareTransitions(String jiraKey) {
+        AtomicReference<String> status = new AtomicReference<>("Open");
+        when(jiraClient.transitionId(jiraKey, JiraClient.RESOLVED))
+                .thenAnswer(invocation -> "Resolved".equals(status.get()) ? Optional.empty() : Optional.of("31"));
+        doAnswer(invocation -> {
+            status.set("Resolved");
+            return null;
+        }).when(jiraClient).transition(eq(jiraKey), eq("31"), any(), any());
+        return status;
+    }
+
+    private double pendingWorkflows() {
+        return meterRegistry.get("dashboard.jira.outbox.depth").gauge().value();
+    }
+}
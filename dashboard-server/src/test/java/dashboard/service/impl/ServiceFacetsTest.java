@@ -0,0 +1,99 @@
+package dashboard.service.impl;
+
+import dashboard.domain.Category;
+import dashboard.domain.CategoryValue;
+import dashboard.domain.Service;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static dashboard.control.RestDataFixture.serviceWithSpEntityId;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceFacetsTest {
+
+    private final ServiceFacets serviceFacets = new ServiceFacets();
+
+    @Test
+    public void facetsAreCounted() {
+        List<Category> facets = serviceFacets.facets("idp", Locale.ENGLISH, "", "1", asList(
+                service("sp1", true, "Research", "Storage"),
+                service("sp2", false, "Research"),
+                service("sp3", true, "Other")));
+
+        assertEquals(1, facets.size());
+        List<CategoryValue> values = facets.get(0).getValues();
+        assertEquals(asList("Other", "Research", "Storage"), values.stream().map(CategoryValue::getValue).collect(toList()));
+        assertEquals(asList(1, 2, 1), values.stream().map(CategoryValue::getCount).collect(toList()));
+        assertEquals(asList(1, 1, 1), values.stream().map(CategoryValue::getConnectedCount).collect(toList()));
+    }
+
+    @Test
+    public void facetsAreUpdatedIncrementally() {
+        List<Service> services = asList(service("sp1", true, "Research"), service("sp2", false, "Research"));
+        List<Category> facets = serviceFacets.facets("idp", Locale.ENGLISH, "", "1", services);
+
+        assertSame(facets, serviceFacets.facets("idp", Locale.ENGLISH, "", "2", services));
+
+        List<Category> updated = serviceFacets.facets("idp", Locale.ENGLISH, "", "3",
+                singletonList(service("sp2", true, "Storage")));
+        List<CategoryValue> values = updated.get(0).getValues();
+        assertEquals(1, values.size());
+        assertEquals("Storage", values.get(0).getValue());
+        assertEquals(1, values.get(0).getCount());
+        assertEquals(1, values.get(0).getConnectedCount());
+    }
+
+    @Test
+    public void facetsAreServedForUnchangedVersion() {
+        List<Category> facets = serviceFacets.facets("idp", Locale.ENGLISH, "", "1",
+                singletonList(service("sp1", true, "Research")));
+
+        assertSame(facets, serviceFacets.facets("idp", Locale.ENGLISH, "", "1",
+                singletonList(service("sp1", true, "Storage"))));
+        assertEquals("Storage", serviceFacets.facets("idp", Locale.ENGLISH, "", null,
+                singletonList(service("sp1", true, "Storage"))).get(0).getValues().get(0).getValue());
+    }
+
+    @Test
+    public void facetsArePerIdpAndLocale() {
+        serviceFacets.facets("idp", Locale.ENGLISH, "", "1", singletonList(service("sp1", true, "Research")));
+        List<Category> facets = serviceFacets.facets("idp", new Locale("nl"), "", "1",
+                singletonList(service("sp1", true, "Onderzoek")));
+
+        assertEquals("Onderzoek", facets.get(0).getValues().get(0).getValue());
+        assertTrue(serviceFacets.facets("other", Locale.ENGLISH, "", "1",
+                singletonList(service("sp1", false))).isEmpty());
+    }
+
+    @Test
+    public void facetsArePerUserVariant() {
+        List<Category> guest = serviceFacets.facets("idp", Locale.ENGLISH, "guest", "1",
+                singletonList(service("sp1", true, "Research")));
+        List<Category> member = serviceFacets.facets("idp", Locale.ENGLISH, "member", "1",
+                asList(service("sp1", true, "Research"), service("sp2", false, "Storage")));
+
+        assertSame(guest, serviceFacets.facets("idp", Locale.ENGLISH, "guest", "1",
+                singletonList(service("sp1", true, "Research"))));
+        assertSame(member, serviceFacets.facets("idp", Locale.ENGLISH, "member", "1",
+                asList(service("sp1", true, "Research"), service("sp2", false, "Storage"))));
+        assertEquals(1, guest.get(0).getValues().size());
+        assertEquals(2, member.get(0).getValues().size());
+    }
+
+    private Service service(String spEntityId, boolean connected, String... categoryValues) {
+        Service service = serviceWithSpEntityId(spEntityId);
+        service.setConnected(connected);
+        if (categoryValues.length > 0) {
+            service.setCategories(singletonList(new Category("Type of Service", "type_of_service",
+                    asList(categoryValues).stream().map(CategoryValue::new).collect(toList()))));
+        }
+        return service;
+    }
+}
@@ -0,0 +1,138 @@
+package dashboard.service.impl;
+
+import dashboard.domain.CoinUser;
+import dashboard.domain.IdentityProvider;
+import dashboard.domain.Service;
+import dashboard.domain.ServiceProvider;
+import dashboard.filter.SpringSecurityUtil;
+import dashboard.manage.EntityType;
+import dashboard.manage.Manage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.*;
+
+import static dashboard.control.RestDataFixture.coinUser;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServicesImplTest {
+
+    private static final String IDP_ENTITY_ID = "https://idp";
+
+    @Mock
+    private Manage manage;
+
+    private ServicesImpl services;
+
+    @Before
+    public void before() {
+        services = new ServicesImpl(manage, Collections.emptyList());
+        CoinUser coinUser = coinUser("user");
+        SpringSecurityUtil.setAuthentication(coinUser);
+
+        Map<String, Object> idp = new HashMap<>();
+        idp.put("entityid", IDP_ENTITY_ID);
+        idp.put("eid", 1);
+        idp.put("allowedall", "yes");
+        when(manage.getIdentityProvider(IDP_ENTITY_ID, false)).thenReturn(Optional.of(new IdentityProvider(idp)));
+    }
+
+    @After
+    public void after() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void servicesForIdpByIdsKeepRequestedOrder() {
+        when(manage.getServiceProvidersByIds(new HashSet<>(asList(3L, 1L, 2L, 99L)))).thenReturn(asList(
+                serviceProvider("https://sp1", 1L, false),
+                serviceProvider("https://sp2", 2L, true),
+                serviceProvider("https://sp3", 3L, false)));
+
+        List<Service> result = services.getServicesForIdpByIds(IDP_ENTITY_ID, asList(3L, 1L, 2L, 99L), Locale.ENGLISH);
+
+        assertEquals(asList("https://sp3", "https://sp1"), result.stream().map(Service::getSpEntityId).collect(toList()));
+        verify(manage, never()).getAllServiceProviders();
+    }
+
+    @Test
+    public void serviceForIdp() {
+        when(manage.getServiceProvider("https://sp1", EntityType.saml20_sp, false))
+                .thenReturn(Optional.of(serviceProvider("https://sp1", 1L, false)));
+
+        Optional<Service> service = services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false, Locale.ENGLISH);
+
+        assertTrue(service.isPresent());
+        assertTrue(service.get().isConnected());
+    }
+
+    @Test
+    public void hiddenServiceForIdp() {
+        when(manage.getServiceProvider("https://sp1", EntityType.saml20_sp, false))
+                .thenReturn(Optional.of(serviceProvider("https://sp1", 1L, true)));
+
+        assertFalse(services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false, Locale.ENGLISH).isPresent());
+    }
+
+    @Test
+    public void fragmentKeyFollowsRevision() {
+        when(manage.getServiceProvider("https://sp1", EntityType.saml20_sp, false))
+                .thenReturn(Optional.of(serviceProvider("https://sp1", 1L, false, 1L)),
+                        Optional.of(serviceProvider("https://sp1", 1L, false, 2L)));
+
+        String first = services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false, Locale.ENGLISH).get().getFragmentKey();
+        String second = services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false, Locale.ENGLISH).get().getFragmentKey();
+
+        assertNotNull(first);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void websiteUrlFollowsLocale() {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("entityid", "https://sp1");
+        metaData.put("eid", 1L);
+        metaData.put("allowedall", "yes");
+        metaData.put("OrganizationURL:en", "https://en");
+        metaData.put("OrganizationURL:nl", "https://nl");
+        metaData.put("OrganizationURL:pt", "https://pt");
+        ServiceProvider serviceProvider = new ServiceProvider(metaData, EntityType.saml20_sp);
+        when(manage.getServiceProvider("https://sp1", EntityType.saml20_sp, false)).thenReturn(Optional.of(serviceProvider));
+
+        assertEquals("https://nl", services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false,
+                new Locale("nl")).get().getWebsiteUrl());
+        assertEquals("https://pt", services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false,
+                new Locale("pt")).get().getWebsiteUrl());
+        assertEquals("https://en", services.getServiceForIdp(IDP_ENTITY_ID, "https://sp1", EntityType.saml20_sp, false,
+                Locale.GERMAN).get().getWebsiteUrl());
+    }
+
+    private ServiceProvider serviceProvider(String entityId, Long eid, boolean hidden) {
+        return serviceProvider(entityId, eid, hidden, null);
+    }
+
+    private ServiceProvider serviceProvider(String entityId, Long eid, boolean hidden, Long revision) {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("revision", revision);
+        metaData.put("entityid", entityId);
+        metaData.put("eid", eid);
+        metaData.put("allowedall", "yes");
+        metaData.put("coin:ss:hidden", hidden ? "1" : "0");
+        return new ServiceProvider(metaData, EntityType.saml20_sp);
+    }
+}
@@ -19,6 +19,8 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import static dashboard.domain.CoinAuthority.Authority.*;
@@ -62,8 +64,7 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
     public void shouldCreateACoinUserBasedOnShibbolethHeaders() {
         HttpServletRequest requestMock = mock(HttpServletRequest.class);
         when(requestMock.getHeader(anyString())).then(invocation -> invocation.getArguments()[0] + "_value");
-        IdentityProvider identityProvider = new IdentityProvider();
-        identityProvider.setState("prodaccepted");
+        IdentityProvider identityProvider = prodAcceptedIdentityProvider(null, null);
         when(manageMock.getIdentityProvider("Shib-Authenticating-Authority_value", false)).thenReturn(Optional.of(identityProvider));
 
         CoinUser coinUser = (CoinUser) subject.getPreAuthenticatedPrincipal(requestMock);
@@ -75,9 +76,7 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
 
     @Test
     public void shouldSetTheInstitionIdOfTheUser() {
-        IdentityProvider idp = new IdentityProvider();
-        idp.setInstitutionId("my-institution-id");
-        idp.setState("prodaccepted");
+        IdentityProvider idp = prodAcceptedIdentityProvider(null, "my-institution-id");
 
         HttpServletRequest requestMock = mock(HttpServletRequest.class);
         when(requestMock.getHeader(anyString())).then(invocation -> invocation.getArguments()[0] + "_value");
@@ -94,8 +93,7 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
         HttpServletRequest requestMock = mock(HttpServletRequest.class);
         when(requestMock.getHeader(anyString())).then(invocation -> invocation.getArguments()[0] + "_value1;" +
                 invocation.getArguments()[0] + "_value2");
-        IdentityProvider identityProvider = new IdentityProvider();
-        identityProvider.setState("prodaccepted");
+        IdentityProvider identityProvider = prodAcceptedIdentityProvider(null, null);
 
         when(manageMock.getIdentityProvider("Shib-Authenticating-Authority_value1", false)).thenReturn(Optional.of(identityProvider));
 
@@ -115,8 +113,7 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
             when(sab.getRoles("uid")).thenReturn(Optional.of(
                     new SabRoleHolder(institutionId, Arrays.asList("urn:mace:surfnet.nl:surfnet.nl:sab:SURFconextverantwoordelijke"))));
             request.addHeader(Name_Id.getValue(), "uid");
-            IdentityProvider idp = new IdentityProvider("mock-idp", "SURFNET", "name", 1L);
-            idp.setState("prodaccepted");
+            IdentityProvider idp = prodAcceptedIdentityProvider("mock-idp", "SURFNET");
             when(manageMock.getIdentityProvider("mock-idp", false)).thenReturn(Optional.of(idp));
             when(manageMock.getInstituteIdentityProviders("SURFNET")).thenReturn(Collections.singletonList(idp));
             request.addHeader(Shib_Authenticating_Authority.getValue(), "mock-idp");
@@ -156,8 +153,7 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
     public void noRoles() {
         MockHttpServletRequest request = httpRequest();
         request.addHeader(Name_Id.getValue(), "uid");
-        IdentityProvider identityProvider = new IdentityProvider();
-        identityProvider.setState("prodaccepted");
+        IdentityProvider identityProvider = prodAcceptedIdentityProvider(null, null);
         when(manageMock.getIdentityProvider("mock-idp", false)).thenReturn(Optional.of(identityProvider));
         CoinUser user = (CoinUser) subject.getPreAuthenticatedPrincipal(request);
         assertEquals(1, user.getAuthorityEnums().size());
@@ -172,8 +168,7 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
             when(sab.getRoles("uid")).thenReturn(Optional.of(
                     new SabRoleHolder(institutionId, Arrays.asList(entitlement))));
         }
-        IdentityProvider idp = new IdentityProvider("mock-idp", institutionId, "name", 1L);
-        idp.setState("prodaccepted");
+        IdentityProvider idp = prodAcceptedIdentityProvider("mock-idp", institutionId);
         when(manageMock.getIdentityProvider("mock-idp", false)).thenReturn(Optional.of(idp));
         when(manageMock.getInstituteIdentityProviders(institutionId)).thenReturn(Collections.singletonList(idp));
         request.addHeader(Shib_Authenticating_Authority.getValue(), "mock-idp");
@@ -182,6 +177,15 @@ public class ShibbolethPreAuthenticatedProcessingFilterTest {
         assertTrue(user.getAuthorityEnums().contains(role));
     }
 
+    private IdentityProvider prodAcceptedIdentityProvider(String entityId, String institutionId) {
+        Map<String, Object> metaData = new HashMap<>();
+        metaData.put("entityid", entityId);
+        metaData.put("eid", 1L);
+        metaData.put("state", "prodaccepted");
+        metaData.put("coin:institution_id", institutionId);
+        return new IdentityProvider(metaData);
+    }
+
     private MockHttpServletRequest httpRequest() {
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.addHeader(Name_Id.getValue(), "uid");
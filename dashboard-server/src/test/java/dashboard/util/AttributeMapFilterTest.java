@@ -2,6 +2,7 @@ package dashboard.util;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import dashboard.domain.ARP;
 import dashboard.shibboleth.ShibbolethHeader;
 import dashboard.util.AttributeMapFilter.ServiceAttribute;
 import org.junit.Test;
@@ -52,4 +53,21 @@ public class AttributeMapFilterTest {
 
         assertThat(filteredAttributes, contains(expectedServiceAttribute));
     }
+
+    @Test
+    public void filterAttributesOfArpShouldUseCompiledFilters() {
+        String attributeName = "urn:mace:dir:attribute-def:eduPersonEntitlement";
+        ARP arp = ARP.fromAttributes(ImmutableMap.of(attributeName, ImmutableList.of("urn:mace:terena.org:tcs:*")));
+
+        Map<ShibbolethHeader, List<String>> userAttributes = ImmutableMap.of(
+                Shib_EduPersonEntitlement, ImmutableList.of("urn:x-surfnet:surf.nl:surfdrive:quota:100", "urn:mace:terena.org:tcs:personal-user"));
+
+        Collection<ServiceAttribute> filteredAttributes = AttributeMapFilter.filterAttributes(arp, userAttributes);
+
+        ServiceAttribute expectedServiceAttribute = new ServiceAttribute(attributeName, "urn:mace:terena.org:tcs:*");
+        expectedServiceAttribute.addUserValues("urn:mace:terena.org:tcs:personal-user");
+
+        assertThat(filteredAttributes, contains(expectedServiceAttribute));
+        assertThat(arp.getAttributeMatchers(), sameInstance(arp.getAttributeMatchers()));
+    }
 }
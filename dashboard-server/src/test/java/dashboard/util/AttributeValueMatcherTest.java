@@ -0,0 +1,46 @@
+package dashboard.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AttributeValueMatcherTest {
+
+    private static final String[] FILTERS = {"*", "**", "", "literal", "prefix*", "*suffix", "*contains*", "in*between",
+            "urn:mace:terena.org:tcs:*", "a+b", "(group)*", "a.b*c"};
+
+    private static final String[] VALUES = {"", "literal", "prefix", "prefix-value", "value-suffix", "suffix",
+            "xcontainsx", "in-the-between", "urn:mace:terena.org:tcs:personal-user", "urn:mace:terenaXorg:tcs:x",
+            "aab", "a+b", "group", "groupie", "(group)ie", "a.b-c", "aXb-c"};
+
+    @Test
+    public void matchesLikeQuotedWildcardExpression() {
+        for (String filter : FILTERS) {
+            Pattern pattern = Pattern.compile(Arrays.stream(filter.split("\\*", -1)).map(Pattern::quote)
+                    .collect(Collectors.joining(".*")));
+            AttributeValueMatcher matcher = AttributeValueMatcher.compile(filter);
+            for (String value : VALUES) {
+                assertEquals(filter + " - " + value, pattern.matcher(value).matches(), matcher.matches(value));
+            }
+        }
+    }
+
+    @Test
+    public void onlyWildcardIsSpecial() {
+        assertFalse(AttributeValueMatcher.compile("urn:mace:terena.org:tcs:*").matches("urn:mace:terenaXorg:tcs:x"));
+        assertFalse(AttributeValueMatcher.compile("a+b").matches("aab"));
+        assertTrue(AttributeValueMatcher.compile("(group)*").matches("(group)ie"));
+    }
+
+    @Test
+    public void compiledOnce() {
+        assertSame(AttributeValueMatcher.compile("urn:*"), AttributeValueMatcher.compile("urn:*"));
+    }
+}